@@ -0,0 +1,100 @@
+package recognition;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.awt.geom.CubicCurve2D;
+import java.awt.geom.Point2D;
+import java.awt.geom.QuadCurve2D;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/* Cost of a sampled Bezier point. deCasteljau* benchmarks keep the
+ * previous implementation of Curves (repeated interpolation passes
+ * with a new array and new points on each pass) to compare against.
+ * Results are per sampled point. Run with: gradle jmh -Pjmh=CurvesBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CurvesBenchmark {
+	private static final int CURVES = 256;
+	// the same as WordWritingArea.CURVE_PARTS_PRECISION
+	private static final int PARTS = 16;
+	private static final int POINTS = CURVES * PARTS;
+
+	private CubicCurve2D[] cubics;
+	private QuadCurve2D[] quads;
+	private double[] samples;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(1);
+		cubics = new CubicCurve2D[CURVES];
+		quads = new QuadCurve2D[CURVES];
+		for (int i = 0; i < CURVES; i++) {
+			cubics[i] = new CubicCurve2D.Float(next(random), next(random), next(random), next(random),
+					next(random), next(random), next(random), next(random));
+			quads[i] = new QuadCurve2D.Float(next(random), next(random), next(random), next(random),
+					next(random), next(random));
+		}
+		samples = new double[PARTS * 2];
+	}
+
+	private static float next(Random random) {
+		return random.nextFloat() * CharacterWriting.CHARACTER_BOX_SIZE;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(POINTS)
+	public void deCasteljauCubic(Blackhole bh) {
+		for (CubicCurve2D c : cubics) {
+			Point2D[] list = {c.getP1(), c.getCtrlP1(), c.getCtrlP2(), c.getP2()};
+			for (int j = 1; j <= PARTS; j++)
+				bh.consume(calculateBezierList(list, (double) j / PARTS));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(POINTS)
+	public void closedFormCubic(Blackhole bh) {
+		for (CubicCurve2D c : cubics) {
+			Curves.sampleCurve(c, 1d / PARTS, 1d / PARTS, PARTS, samples, 0);
+			bh.consume(samples);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(POINTS)
+	public void deCasteljauQuadratic(Blackhole bh) {
+		for (QuadCurve2D c : quads) {
+			Point2D[] list = {c.getP1(), c.getCtrlPt(), c.getP2()};
+			for (int j = 1; j <= PARTS; j++)
+				bh.consume(calculateBezierList(list, (double) j / PARTS));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(POINTS)
+	public void closedFormQuadratic(Blackhole bh) {
+		for (QuadCurve2D c : quads) {
+			Curves.sampleCurve(c, 1d / PARTS, 1d / PARTS, PARTS, samples, 0);
+			bh.consume(samples);
+		}
+	}
+
+	// previous implementation of Curves.calculateBezierList
+	private static Point2D calculateBezierList(Point2D[] list, double t) {
+		while (list.length != 1) {
+			Point2D[] result = new Point2D[list.length - 1];
+			for (int i = 0; i < result.length; i++)
+				result[i] = new Point2D.Double(list[i].getX() + t * (list[i + 1].getX() - list[i].getX()),
+						list[i].getY() + t * (list[i + 1].getY() - list[i].getY()));
+			list = result;
+		}
+		return list[0];
+	}
+}
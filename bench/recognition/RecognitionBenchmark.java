@@ -0,0 +1,105 @@
+package recognition;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/* Stages of recognition of a written word, from building reference
+ * writings to the verdict of Writings.isCorrect, on synthetic decks
+ * of different sizes (see SyntheticDecks). Writings are written with
+ * a fixed seed; 'jitter' is noise in pixels added to every point.
+ * Results are per word.
+ *
+ * Run with: gradle jmh -Pjmh=RecognitionBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecognitionBenchmark {
+	// the number of words of a deck that are written and recognized
+	private static final int WRITTEN = 64;
+	private static final long SEED = 1;
+
+	@Param({"10", "100", "1000", "6744"})
+	public int deckSize;
+
+	@Param({"0", "3"})
+	public double jitter;
+
+	private List<String> deck;
+	private String[] words; // written words (a part of the deck)
+	private List<List<List<Point2D>>> writings;
+	private WrittenAnswer[] answers;
+	private WrittenAnswer[] references;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		Writings.init();
+		deck = SyntheticDecks.deck(deckSize, SEED);
+		SyntheticDecks.use(deck);
+
+		Random random = new Random(SEED);
+		int written = Math.min(WRITTEN, deck.size());
+		words = new String[written];
+		writings = new ArrayList<>(written);
+		answers = new WrittenAnswer[written];
+		references = new WrittenAnswer[written];
+		for (int i = 0; i < written; i++) {
+			words[i] = deck.get(random.nextInt(deck.size()));
+			writings.add(SyntheticDecks.write(words[i], random, jitter));
+			answers[i] = new WrittenAnswer(writings.get(i));
+			references[i] = Writings.getComparisonInfo(words[i]);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(WRITTEN)
+	public void wordWriting(Blackhole bh) {
+		for (String word : words)
+			bh.consume(new WordWriting(word));
+	}
+
+	// smoothing of strokes and finding their angles and grid cells
+	@Benchmark
+	@OperationsPerInvocation(WRITTEN)
+	public void features(Blackhole bh) {
+		for (List<List<Point2D>> writing : writings)
+			bh.consume(new WrittenAnswer(writing));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(WRITTEN)
+	public void compareToWritten(Blackhole bh) {
+		for (int i = 0; i < answers.length; i++)
+			bh.consume(references[i].compareToWritten(answers[i]));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(WRITTEN)
+	public void isCorrect(Blackhole bh) {
+		for (int i = 0; i < answers.length; i++)
+			bh.consume(Writings.isCorrect(answers[i], words[i]));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(WRITTEN)
+	public void isCorrectAsync(Blackhole bh) {
+		for (int i = 0; i < answers.length; i++)
+			bh.consume(Writings.isCorrectAsync(answers[i], words[i]).join());
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(WRITTEN)
+	public void rankCandidates(Blackhole bh) {
+		for (WrittenAnswer answer : answers)
+			bh.consume(Writings.rankCandidates(answer, 5));
+	}
+}
@@ -0,0 +1,77 @@
+package recognition;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/* Decks and writings for benchmarks, made from the writings file so that
+ * they don't depend on card files. Everything is generated from a seed,
+ * so every run (and every fork) benchmarks the same words and strokes.
+ * 6744 words (the number of characters in KanjiVG) is the largest deck.
+ * Writings.init() has to be called first, from the directory with assets.
+ */
+final class SyntheticDecks {
+	// how strokes are scaled and moved, close to what WordWritingArea gets from the mouse
+	private static final double SCALE = 2.3, OFFSET_X = 40, OFFSET_Y = 20;
+	private static final int POINTS_PER_STROKE = 24;
+
+	private SyntheticDecks() {
+	}
+
+	/* Returns 'size' different words of 1 to 3 characters (every third word
+	 * has 2 characters and every seventh one has 3). If the writings file
+	 * doesn't have enough characters, the deck is smaller.
+	 */
+	static List<String> deck(int size, long seed) {
+		int[] codePoints = Writings.getCodePoints();
+		Random random = new Random(seed);
+		// shuffle to not take neighbouring (similar looking) characters only
+		for (int i = codePoints.length - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			int cp = codePoints[i];
+			codePoints[i] = codePoints[j];
+			codePoints[j] = cp;
+		}
+
+		List<String> words = new ArrayList<>(size);
+		int next = 0;
+		for (int i = 0; i < size && next < codePoints.length; i++) {
+			int characters = i % 7 == 6 ? 3 : i % 3 == 2 ? 2 : 1;
+			StringBuilder word = new StringBuilder();
+			for (int c = 0; c < characters && next < codePoints.length; c++)
+				word.appendCodePoint(codePoints[next++]);
+			words.add(word.toString());
+		}
+		return words;
+	}
+
+	// registers words in Writings and makes them candidates for isCorrect
+	static void use(List<String> words) {
+		words.forEach(Writings::register);
+		Writings.setCandidates(words);
+	}
+
+	/* Returns the writing of a word as if it was written in WordWritingArea:
+	 * the reference strokes sampled at even t with gaussian noise of
+	 * 'jitter' pixels added to every point.
+	 */
+	static List<List<Point2D>> write(String word, Random random, double jitter) {
+		List<Stroke> strokes = new ArrayList<>();
+		int[] codePoints = word.codePoints().toArray();
+		for (int i = 0; i < codePoints.length; i++)
+			Writings.get(codePoints[i]).addStrokesTranslated(i, strokes);
+
+		List<List<Point2D>> writing = new ArrayList<>(strokes.size());
+		for (Stroke stroke : strokes) {
+			List<Point2D> points = new ArrayList<>(POINTS_PER_STROKE + 1);
+			for (int i = 0; i <= POINTS_PER_STROKE; i++) {
+				Point2D p = stroke.getPoint((double) i / POINTS_PER_STROKE);
+				points.add(new Point2D.Double(p.getX() * SCALE + OFFSET_X + random.nextGaussian() * jitter,
+						p.getY() * SCALE + OFFSET_Y + random.nextGaussian() * jitter));
+			}
+			writing.add(points);
+		}
+		return writing;
+	}
+}
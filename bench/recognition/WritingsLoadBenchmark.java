@@ -0,0 +1,22 @@
+package recognition;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/* Startup cost of the writings file: mapping it and reading (or building)
+ * the index. Run with: gradle jmh -Pjmh=WritingsLoadBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(3)
+public class WritingsLoadBenchmark {
+	@Benchmark
+	public Object load() {
+		Writings.init();
+		return Writings.getCodePoints();
+	}
+}
@@ -8,15 +8,9 @@ public class Card {
 	private String meaning;
 
 	private Card(String word, String reading, String meaning) {
-		if (!Writings.isSupported(word))
-			throw new IllegalArgumentException(word + " contains 1 or more characters with unsupported writing");
-		if (!Kana.isValidKanaReading(reading))
-			throw new IllegalArgumentException(reading + " contains 1 or more non-kana characters");
-
 		this.word = word;
 		this.reading = reading;
 		this.meaning = meaning;
-		Writings.register(word);
 	}
 
 	public String getWord() {
@@ -35,6 +29,15 @@ public class Card {
 		String[] split = line.split("\t");
 		if (split.length != 3)
 			throw new IllegalArgumentException(line + " contains incorrect number of parts (" + split.length + ")");
+		if (!Writings.isSupported(split[0]))
+			throw new IllegalArgumentException(split[0] + " contains 1 or more characters with unsupported writing");
+		if (!Kana.isValidKanaReading(split[1]))
+			throw new IllegalArgumentException(split[1] + " contains 1 or more non-kana characters");
 		return new Card(split[0], split[1], split[2]);
 	}
+
+	// creates a card read from a compiled words file, it was checked when the file was compiled
+	static Card createCompiled(String word, String reading, String meaning) {
+		return new Card(word, reading, meaning);
+	}
 }
@@ -1,14 +1,20 @@
 package cards;
 
 import gui.Scene;
-import main.Assets;
+import main.Instrumentation;
 import recognition.Writings;
 
+import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 public class Cards {
 	public static final int CARDS_MODE_LEARN = 0;
@@ -19,8 +25,12 @@ public class Cards {
 	public static final int ANSWER_MODE_WORD_READING = 1;
 	public static final int ANSWER_MODE_MEANING_WRITING = 2;
 
-	private static Map<String, List<Card>> wordsFiles;
+	private static Map<String, WordsDeck> wordsFiles;
 	private static List<String> filesList;
+	// set when word files are loaded, nothing else can be used before that
+	private static volatile boolean loaded;
+	// lines of word files that couldn't be read ("file:line: reason")
+	private static List<String> loadingErrors;
 	private static List<String> selectedFiles;
 	private static int cardsMode;
 	private static int answerMode;
@@ -28,54 +38,102 @@ public class Cards {
 	private static List<Card> currentList;
 	private static CardsMode currentMode;
 
+	// loads everything on the calling thread
 	public static void init() {
-		Writings.init();
-		loadWordFiles();
+		load((loadedFiles, files) -> {
+		}).join();
+	}
+
+	/* Loads writings and word files in the background, files are read (or
+	 * compiled, see WordsDeck) in parallel, cards are only made when their
+	 * files are selected. onProgress is called with the number
+	 * of loaded files and the number of all files each time a file is loaded
+	 * (from the loading threads).
+	 */
+	public static CompletableFuture<Void> load(BiConsumer<Integer, Integer> onProgress) {
+		return CompletableFuture.runAsync(() -> {
+			Instrumentation.time("Cards.load", () -> {
+				Writings.init();
+				Instrumentation.time("Cards.loadWordFiles", () -> loadWordFiles(onProgress));
+			});
+
+			setFilesList(Collections.singletonList(filesList.get(0))); // select the first file
+			answerMode = ANSWER_MODE_WORD_MEANING;
+			cardsMode = CARDS_MODE_LEARN;
+			loaded = true;
+		});
+	}
 
-		setFilesList(Collections.singletonList(filesList.get(0))); // select the first file
-		answerMode = ANSWER_MODE_WORD_MEANING;
-		cardsMode = CARDS_MODE_LEARN;
+	public static boolean isLoaded() {
+		return loaded;
 	}
 
-	private static void loadWordFiles() {
+	private static void loadWordFiles(BiConsumer<Integer, Integer> onProgress) {
 		File[] fileObjects = new File("words").listFiles();
 		if (fileObjects == null) {
 			System.err.println("Words directory doesn't exist");
 			System.exit(1);
 		}
 
-		wordsFiles = new HashMap<>();
-		filesList = new ArrayList<>();
-		for (File f : fileObjects) {
-			if (f.isFile()) {
-				String fileName = f.getName();
-
-				int dot = fileName.lastIndexOf('.');
-				if (dot != -1) fileName = fileName.substring(0, dot); // remove format from name
-
-				try {
-					wordsFiles.put(fileName, readCardsFromFile(loadText(f)));
-					filesList.add(fileName);
-				} catch (IOException e) {
-					e.printStackTrace();
-				}
+		wordsFiles = new ConcurrentHashMap<>();
+		loadingErrors = Collections.synchronizedList(new ArrayList<>());
+		List<File> files = new ArrayList<>();
+		for (File f : fileObjects)
+			if (f.isFile()) files.add(f);
+
+		AtomicInteger loadedFiles = new AtomicInteger();
+		onProgress.accept(0, files.size());
+		files.parallelStream().forEach(f -> {
+			String fileName = f.getName();
+
+			int dot = fileName.lastIndexOf('.');
+			if (dot != -1) fileName = fileName.substring(0, dot); // remove format from name
+
+			try {
+				WordsDeck deck = WordsDeck.load(f, fileName);
+				List<String> errors = deck.getErrors();
+				errors.forEach(System.err::println);
+				loadingErrors.addAll(errors);
+				wordsFiles.put(fileName, deck);
+			} catch (IOException e) {
+				e.printStackTrace();
 			}
-		}
+			onProgress.accept(loadedFiles.incrementAndGet(), files.size());
+		});
 
+		loadingErrors.sort(String::compareTo);
+		filesList = new ArrayList<>(wordsFiles.keySet());
 		filesList.sort(String::compareTo);
 		currentList = new ArrayList<>();
 	}
 
-	private static List<Card> readCardsFromFile(String contents) {
-		String[] lines = contents.split(System.lineSeparator());
-		List<Card> cards = new ArrayList<>();
-		for (String l : lines)
-			cards.add(Card.createFromLine(l));
-		return cards;
+	/* Reads cards of a words file line by line (lines can end with \n, \r\n
+	 * or \r), skipping blank lines and a byte order mark. Lines that can't be
+	 * read are skipped and passed to onError with their numbers and reasons.
+	 */
+	static void readCardsFromFile(File f, Consumer<Card> onCard, BiConsumer<Integer, String> onError)
+			throws IOException {
+		Instrumentation.count("bytes.read", f.length());
+		try (BufferedReader in = Files.newBufferedReader(f.toPath(), StandardCharsets.UTF_8)) {
+			String line;
+			int lineNumber = 0;
+			while ((line = in.readLine()) != null) {
+				lineNumber++;
+				if (lineNumber == 1 && line.startsWith("\uFEFF"))
+					line = line.substring(1); // byte order mark
+				if (line.isBlank())
+					continue;
+				try {
+					onCard.accept(Card.createFromLine(line));
+				} catch (IllegalArgumentException e) {
+					onError.accept(lineNumber, e.getMessage());
+				}
+			}
+		}
 	}
 
-	private static String loadText(File f) throws IOException {
-		return new String(Assets.loadStream(new FileInputStream(f)), StandardCharsets.UTF_8);
+	public static List<String> getLoadingErrors() {
+		return loadingErrors;
 	}
 
 	public static List<String> getFilesList() {
@@ -137,6 +195,8 @@ public class Cards {
 	}
 
 	public static void start(Scene from) {
+		if (!loaded) // the main scene shows loading progress
+			return;
 		if (currentList.isEmpty()) {
 			Scene.sceneModeWordsSelection.setWarning("Please select at least one words file");
 			from.changeScene(Scene.sceneModeWordsSelection);
@@ -157,7 +217,12 @@ public class Cards {
 	private static void setFilesList(List<String> fileNames) {
 		Cards.selectedFiles = fileNames;
 		currentList.clear();
-		fileNames.forEach(name -> currentList.addAll(wordsFiles.get(name)));
+		fileNames.forEach(name -> currentList.addAll(wordsFiles.get(name).getCards()));
+
+		// words of the selected files are only registered now, in the background
+		List<String> words = new ArrayList<>(currentList.size());
+		currentList.forEach(card -> words.add(card.getWord()));
+		Writings.setCandidatesAsync(words);
 	}
 
 	private static void initCurrentMode() {
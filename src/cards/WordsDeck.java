@@ -0,0 +1,231 @@
+package cards;
+
+import main.Assets;
+import main.Instrumentation;
+import recognition.Writings;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/* A words file compiled to assets/decks/<name>.jwdeck, so that the text
+ * doesn't need to be parsed on every start. The deck is memory-mapped
+ * and cards are only decoded when the file is selected. It's compiled
+ * again if the size and the modification time of the words file changed
+ * and its CRC32 doesn't match (if only the time changed, it's updated),
+ * or if the writings file changed, as it decides which words are supported.
+ *
+ * The deck is 4 bytes magic, 4 bytes version, 8 bytes size, 8 bytes
+ * modification time and 8 bytes CRC32 of the words file, 8 bytes size and
+ * 8 bytes CRC32 of the writings file (see Writings.getWritingsChecksum), then:
+ * strings (4 bytes number of strings, 4 bytes offset of each string and
+ * one more for the end of the last one, UTF-8 bytes of the strings),
+ * lines that couldn't be read (4 bytes number of them, then 4 bytes line
+ * number and 4 bytes string of the reason for each one) and cards
+ * (4 bytes number of cards, then 4 bytes strings of word, reading and
+ * meaning for each one). Strings are stored once and referred to by
+ * their numbers.
+ */
+final class WordsDeck {
+	private static final String DIRECTORY = "decks/";
+	private static final String EXTENSION = ".jwdeck";
+	private static final int MAGIC = 0x4a57444b; // "JWDK"
+	private static final int VERSION = 2;
+	private static final int MTIME_POSITION = 16;
+	private static final int HEADER_SIZE = 48;
+
+	private final String fileName;
+	private final ByteBuffer buffer; // only read with absolute positions
+	private final int offsetsPosition, stringsPosition, errorsPosition, cardsPosition;
+	private final String[] strings; // decoded strings, so that equal strings of cards are the same objects
+	private List<Card> cards;
+
+	private WordsDeck(String fileName, ByteBuffer buffer) {
+		this.fileName = fileName;
+		this.buffer = buffer;
+		offsetsPosition = HEADER_SIZE + 4;
+		strings = new String[buffer.getInt(HEADER_SIZE)];
+		stringsPosition = offsetsPosition + (strings.length + 1) * 4;
+		errorsPosition = stringsPosition + buffer.getInt(offsetsPosition + strings.length * 4);
+		cardsPosition = errorsPosition + 4 + buffer.getInt(errorsPosition) * 8;
+		if (cardsPosition + 4 + buffer.getInt(cardsPosition) * 12L != buffer.limit())
+			throw new IllegalStateException(fileName + EXTENSION + " is corrupted");
+	}
+
+	// returns the compiled words file, compiling it if needed
+	static WordsDeck load(File source, String name) throws IOException {
+		String deckName = DIRECTORY + name + EXTENSION;
+		WordsDeck deck = read(source, name, deckName);
+		if (deck != null)
+			return deck;
+
+		byte[] compiled = Instrumentation.time("WordsDeck.compile", () -> compile(source, checksum(source)));
+		Instrumentation.count("decks.compiled");
+		try {
+			Assets.replaceFile(deckName, compiled);
+		} catch (IOException e) {
+			// the deck can still be used from memory, it will be compiled again on next start
+			System.err.println("Unable to save " + deckName + ": " + e.getMessage());
+		}
+		return new WordsDeck(source.getName(), ByteBuffer.wrap(compiled));
+	}
+
+	// lines of the words file that couldn't be read ("file:line: reason")
+	List<String> getErrors() {
+		int amount = buffer.getInt(errorsPosition);
+		List<String> errors = new ArrayList<>(amount);
+		for (int i = 0; i < amount; i++) {
+			int position = errorsPosition + 4 + i * 8;
+			errors.add(fileName + ":" + buffer.getInt(position) + ": " + getString(buffer.getInt(position + 4)));
+		}
+		return errors;
+	}
+
+	// cards are decoded on the first call
+	synchronized List<Card> getCards() {
+		if (cards == null) {
+			int amount = buffer.getInt(cardsPosition);
+			cards = new ArrayList<>(amount);
+			for (int i = 0; i < amount; i++) {
+				int position = cardsPosition + 4 + i * 12;
+				cards.add(Card.createCompiled(getString(buffer.getInt(position)),
+						getString(buffer.getInt(position + 4)), getString(buffer.getInt(position + 8))));
+			}
+			cards = Collections.unmodifiableList(cards);
+			Instrumentation.count("cards.loaded", amount);
+		}
+		return cards;
+	}
+
+	private String getString(int i) {
+		if (strings[i] == null) {
+			int start = buffer.getInt(offsetsPosition + i * 4);
+			byte[] bytes = new byte[buffer.getInt(offsetsPosition + i * 4 + 4) - start];
+			buffer.get(stringsPosition + start, bytes);
+			strings[i] = new String(bytes, StandardCharsets.UTF_8);
+		}
+		return strings[i];
+	}
+
+	/* Returns null if there is no deck for this version of the words file.
+	 * The deck is checked with plain reads and only mapped when it can be
+	 * used, so a deck that is compiled again is never replaced while mapped.
+	 */
+	private static WordsDeck read(File source, String name, String deckName) throws IOException {
+		try (RandomAccessFile deck = new RandomAccessFile(Assets.getFile(deckName), "r")) {
+			if (deck.length() < HEADER_SIZE + 4 || deck.readInt() != MAGIC || deck.readInt() != VERSION)
+				return null;
+			if (deck.readLong() != source.length())
+				return null;
+			boolean touched = deck.readLong() != source.lastModified();
+			if (touched && deck.readLong() != checksum(source))
+				return null;
+			deck.seek(32); // cards were checked with another writings file
+			if (deck.readLong() != Writings.getWritingsSize() || deck.readLong() != Writings.getWritingsChecksum())
+				return null;
+			if (!isComplete(deck)) {
+				System.err.println(name + EXTENSION + " is corrupted, compiling it again");
+				return null;
+			}
+			if (touched) // the file was only touched, the deck is still valid
+				updateModified(deckName, source.lastModified());
+		} catch (FileNotFoundException e) {
+			return null;
+		}
+		return new WordsDeck(source.getName(), Assets.mapFile(deckName));
+	}
+
+	// checks that the sections of the deck end where the file ends (i.e. it wasn't cut off)
+	private static boolean isComplete(RandomAccessFile deck) throws IOException {
+		long length = deck.length();
+		deck.seek(HEADER_SIZE);
+		long stringsPosition = HEADER_SIZE + 4 + (deck.readInt() + 1L) * 4;
+		if (stringsPosition < HEADER_SIZE + 8 || stringsPosition > length)
+			return false;
+		deck.seek(stringsPosition - 4);
+		long errorsPosition = stringsPosition + deck.readInt();
+		if (errorsPosition < stringsPosition || errorsPosition + 4 > length)
+			return false;
+		deck.seek(errorsPosition);
+		long cardsPosition = errorsPosition + 4 + deck.readInt() * 8L;
+		if (cardsPosition < errorsPosition + 4 || cardsPosition + 4 > length)
+			return false;
+		deck.seek(cardsPosition);
+		return cardsPosition + 4 + deck.readInt() * 12L == length;
+	}
+
+	private static void updateModified(String deckName, long modified) throws IOException {
+		try (RandomAccessFile deck = new RandomAccessFile(Assets.getFile(deckName), "rw")) {
+			deck.seek(MTIME_POSITION);
+			deck.writeLong(modified);
+		}
+	}
+
+	// cards and lines that couldn't be read are found by Cards.readCardsFromFile
+	private static byte[] compile(File source, long checksum) throws IOException {
+		Map<String, Integer> stringIds = new HashMap<>();
+		List<String> strings = new ArrayList<>();
+		List<int[]> errors = new ArrayList<>(); // line number and string id of the reason
+		List<int[]> cards = new ArrayList<>(); // string ids of word, reading and meaning
+
+		Cards.readCardsFromFile(source,
+				c -> cards.add(new int[]{intern(c.getWord(), stringIds, strings),
+						intern(c.getReading(), stringIds, strings), intern(c.getMeaning(), stringIds, strings)}),
+				(line, reason) -> errors.add(new int[]{line, intern(reason, stringIds, strings)}));
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeLong(source.length());
+		out.writeLong(source.lastModified());
+		out.writeLong(checksum);
+		out.writeLong(Writings.getWritingsSize());
+		out.writeLong(Writings.getWritingsChecksum());
+
+		List<byte[]> encoded = new ArrayList<>(strings.size());
+		strings.forEach(s -> encoded.add(s.getBytes(StandardCharsets.UTF_8)));
+		out.writeInt(strings.size());
+		int offset = 0;
+		for (byte[] s : encoded) {
+			out.writeInt(offset);
+			offset += s.length;
+		}
+		out.writeInt(offset);
+		for (byte[] s : encoded)
+			out.write(s);
+
+		out.writeInt(errors.size());
+		for (int[] error : errors) {
+			out.writeInt(error[0]);
+			out.writeInt(error[1]);
+		}
+		out.writeInt(cards.size());
+		for (int[] card : cards)
+			for (int id : card)
+				out.writeInt(id);
+		return bytes.toByteArray();
+	}
+
+	private static int intern(String s, Map<String, Integer> ids, List<String> strings) {
+		return ids.computeIfAbsent(s, key -> {
+			strings.add(key);
+			return strings.size() - 1;
+		});
+	}
+
+	private static long checksum(File source) throws IOException {
+		CRC32 crc = new CRC32();
+		try (InputStream in = new FileInputStream(source)) {
+			byte[] buffer = new byte[16384];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				crc.update(buffer, 0, read);
+				Instrumentation.count("bytes.read", read);
+			}
+		}
+		return crc.getValue();
+	}
+}
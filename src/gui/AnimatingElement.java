@@ -1,23 +1,33 @@
 package gui;
 
+import main.Instrumentation;
+
+import javax.swing.Timer;
 import java.awt.*;
-import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+/* Repaints active elements every frame. All of them are repainted on
+ * the event dispatch thread by one timer, and only the elements that
+ * are displayed are registered in it (see setDisplayed), so that
+ * elements of scenes that aren't shown don't need to be checked.
+ * The timer stops when no displayed element is active and is started
+ * again by setActive(true).
+ */
 public class AnimatingElement {
-	private static ArrayList<AnimatingElement> animatingElements = new ArrayList<>();
+	private static final Set<AnimatingElement> displayedElements = ConcurrentHashMap.newKeySet();
 	private static int animationsFramerate;
+	private static Timer timer;
 
 	static {
 		start();
 	}
 
 	private final Runnable repaint;
-	private boolean active;
-	private boolean displayed; // if not displayed, do not repaint anyway
+	private volatile boolean active;
 
 	public AnimatingElement(Runnable repaint) {
 		this.repaint = repaint;
-		animatingElements.add(this);
 	}
 
 	public AnimatingElement(Element e) {
@@ -26,26 +36,37 @@ public class AnimatingElement {
 
 	private static void start() {
 		animationsFramerate = getAvailableFramerate();
-		Thread loopThread = new Thread(() -> {
-			int delay = 1000 / animationsFramerate;
-			while (true) {
-				try {
-					Thread.sleep(delay);
-				} catch (InterruptedException e) {
-					e.printStackTrace();
-				}
-
-				for (int i = 0; i < animatingElements.size(); i++) {
-					AnimatingElement element = animatingElements.get(i);
-					if (element.active && element.displayed)
-						element.repaint.run();
-				}
-			}
+		timer = new Timer(1000 / animationsFramerate, e -> {
+			for (AnimatingElement element : displayedElements)
+				if (element.active)
+					element.repaint.run();
+			stopIfIdle();
 		});
-		loopThread.start();
+	}
+
+	// synchronized with wake, so that an element activated from another thread isn't missed
+	private static synchronized void stopIfIdle() {
+		for (AnimatingElement element : displayedElements)
+			if (element.active)
+				return;
+		timer.stop();
+	}
+
+	private static synchronized void wake() {
+		if (!timer.isRunning())
+			timer.start();
+	}
+
+	// frames per second of animations
+	public static int getFramerate() {
+		return animationsFramerate;
 	}
 
 	private static int getAvailableFramerate() { // gets maximum available refresh rate of monitor(s)
+		return Instrumentation.time("AnimatingElement.getAvailableFramerate", AnimatingElement::findMaxRefreshRate);
+	}
+
+	private static int findMaxRefreshRate() {
 		GraphicsDevice[] gds = GraphicsEnvironment.getLocalGraphicsEnvironment().getScreenDevices();
 		int maxFPS = -1;
 		for (GraphicsDevice gd : gds) {
@@ -62,9 +83,17 @@ public class AnimatingElement {
 
 	public void setActive(boolean active) {
 		this.active = active;
+		if (active && displayedElements.contains(this))
+			wake();
 	}
 
+	// if not displayed, the element isn't repainted anyway
 	public void setDisplayed(boolean displayed) {
-		this.displayed = displayed;
+		if (displayed) {
+			displayedElements.add(this);
+			if (active)
+				wake();
+		} else
+			displayedElements.remove(this);
 	}
 }
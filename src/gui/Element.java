@@ -17,6 +17,11 @@ public abstract class Element {
 
 	protected abstract void paint(Graphics2D g);
 
+	// the area paint can change, elements painting outside of their bounds override it
+	protected Rectangle getPaintArea() {
+		return bounds.getRectangle();
+	}
+
 	protected final Scene getContainer() {
 		return container;
 	}
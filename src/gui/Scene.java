@@ -6,7 +6,7 @@ import java.awt.*;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
 import java.awt.geom.AffineTransform;
-import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
 import java.util.ArrayList;
 import java.util.function.Consumer;
 
@@ -23,6 +23,7 @@ public abstract class Scene {
 	private static boolean displayElementsBounds = false; // for development only
 	private final Window holder;
 	private final ArrayList<Element> elements = new ArrayList<>();
+	private VolatileImage elementsImage; // see paint
 
 	public Scene(Window holder) {
 		this.holder = holder;
@@ -36,33 +37,70 @@ public abstract class Scene {
 	public void paint(Graphics2D g, AffineTransform transform) {
 		/* elements are drawn in a separate image to let them use
 		 * AlphaCompositing without affecting background and without
-		 * necessity for them to use separate BufferedImages for it
+		 * necessity for them to use separate BufferedImages for it.
+		 * The image is kept between paints, so only the area being
+		 * painted is cleared and copied (all of it if the scene is
+		 * transformed), elements outside of it aren't painted
 		 */
 		Dimension size = getSize();
-		BufferedImage elementsImage = new BufferedImage(size.width, size.height, BufferedImage.TYPE_INT_ARGB);
-		Graphics2D elementsGraphics = elementsImage.createGraphics();
+		Rectangle clip = g.getClipBounds();
+		Rectangle dirty = transform != null || clip == null ? new Rectangle(size) : clip;
+		GraphicsConfiguration configuration = g.getDeviceConfiguration();
+
+		VolatileImage image;
+		do { // the image contents may be lost at any time, in that case it's painted again
+			image = getElementsImage(size, configuration);
+			Graphics2D elementsGraphics = image.createGraphics();
+
+			// assign RenderingHints of g to elementsGraphics
+			elementsGraphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+					g.getRenderingHint(RenderingHints.KEY_ANTIALIASING));
+			elementsGraphics.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS,
+					g.getRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS));
+
+			elementsGraphics.setComposite(AlphaComposite.Clear);
+			elementsGraphics.fill(dirty);
+			elementsGraphics.setComposite(AlphaComposite.SrcOver);
+
+			if (transform != null)
+				elementsGraphics.transform(transform);
+			else
+				elementsGraphics.setClip(g.getClip());
 
-		// assign RenderingHints of g to elementsGraphics
-		elementsGraphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
-				g.getRenderingHint(RenderingHints.KEY_ANTIALIASING));
-		elementsGraphics.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS,
-				g.getRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS));
-
-		if (transform != null)
-			elementsGraphics.transform(transform);
-		else
-			elementsGraphics.setClip(g.getClip());
-
-		if (displayElementsBounds) {
 			forEachElements(element -> {
+				if (transform == null && !element.getPaintArea().intersects(dirty))
+					return;
 				element.paint(elementsGraphics);
-				elementsGraphics.setColor(Color.magenta);
-				elementsGraphics.drawRect(element.x(), element.y(), element.w() - 1, element.h() - 1);
+				if (displayElementsBounds) {
+					elementsGraphics.setColor(Color.magenta);
+					elementsGraphics.drawRect(element.x(), element.y(), element.w() - 1, element.h() - 1);
+				}
 			});
-		} else {
-			forEachElements(element -> element.paint(elementsGraphics));
+			elementsGraphics.dispose();
+			g.drawImage(image, dirty.x, dirty.y, dirty.x + dirty.width, dirty.y + dirty.height,
+					dirty.x, dirty.y, dirty.x + dirty.width, dirty.y + dirty.height, null);
+		} while (image.contentsLost());
+	}
+
+	// returns the image elements are painted in, making a new one if the size or screen changed
+	private VolatileImage getElementsImage(Dimension size, GraphicsConfiguration configuration) {
+		if (elementsImage != null && elementsImage.getWidth() == size.width
+				&& elementsImage.getHeight() == size.height
+				&& elementsImage.validate(configuration) != VolatileImage.IMAGE_INCOMPATIBLE)
+			return elementsImage;
+
+		releaseElementsImage();
+		elementsImage = configuration.createCompatibleVolatileImage(
+				size.width, size.height, Transparency.TRANSLUCENT);
+		return elementsImage;
+	}
+
+	// frees the image elements are painted in while the scene isn't painted
+	final void releaseElementsImage() {
+		if (elementsImage != null) {
+			elementsImage.flush();
+			elementsImage = null;
 		}
-		g.drawImage(elementsImage, 0, 0, null);
 	}
 
 	public final Dimension getSize() {
@@ -1,26 +1,49 @@
 package gui;
 
 import main.Assets;
+import main.Instrumentation;
 
 import java.awt.*;
 import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
+import java.util.concurrent.CompletableFuture;
 
 public final class Theme {
 	private static Color background = Color.black, foreground = Color.white;
 	private static double backgroundDim = 0.25;
-	private static BufferedImage bgImage;
-
-	private static Font fontEnglish;
-	private static Font fontJapanese;
+	// assets are loaded in the background (see load), the background is painted without the image until it's loaded
+	private static volatile CompletableFuture<BufferedImage> bgImage;
+	// the background image scaled to the window and dimmed, with the colors it was made with
+	private static BufferedImage bgCache;
+	private static int bgCacheColor;
+	private static double bgCacheDim;
+
+	private static CompletableFuture<Font> fontEnglish;
+	private static CompletableFuture<Font> fontJapanese;
 	private static float UIFontsize = 20f;
 	private static Font UIFont;
 
-	static {
-		bgImage = Assets.loadImage("bg_airplane_wing.jpg");
-		fontEnglish = Assets.loadFont("SFProText-Light.ttf");
-		fontJapanese = Assets.loadFont("YuGothL.ttc");
-		UIFont = fontEnglish.deriveFont(UIFontsize);
+	/* Starts loading fonts and the background image in the background, so that
+	 * they're loaded by the time they're used. Only the first call loads them,
+	 * they're also loaded when they're first needed if this wasn't called.
+	 */
+	public static synchronized void load() {
+		if (bgImage != null)
+			return;
+		fontEnglish = Assets.loadAsync(() -> Assets.loadFont("SFProText-Light.ttf"));
+		fontJapanese = Assets.loadAsync(() -> Assets.loadFont("YuGothL.ttc"));
+		// if the image can't be loaded, the background is painted without it
+		bgImage = Assets.loadAsync(() -> Instrumentation.time("Theme.loadBackground",
+				() -> Assets.loadImage("bg_airplane_wing.jpg"))).exceptionally(e -> {
+			e.printStackTrace();
+			return null;
+		});
+	}
+
+	// the action is run (from a loading thread) when the background image is loaded or failed to load
+	public static void onBackgroundLoaded(Runnable action) {
+		load();
+		bgImage.thenRun(action);
 	}
 
 	public static Color getFG() {
@@ -49,19 +72,63 @@ public final class Theme {
 		return getBG((int) (255 * withAlpha));
 	}
 
+	// fonts are needed to make elements, so these wait until the fonts are loaded
 	public static Font getUIFont() {
+		if (UIFont == null)
+			UIFont = getFontEnglish().deriveFont(UIFontsize);
 		return UIFont;
 	}
 
 	public static Font getFontJapanese() {
-		return fontJapanese;
+		load();
+		return fontJapanese.join();
 	}
 
 	public static Font getFontEnglish() {
-		return fontEnglish;
+		load();
+		return fontEnglish.join();
 	}
 
+	/* Paints the background, the scaled and dimmed image is made once
+	 * for a size in device pixels (and background color) and then only copied.
+	 */
 	public static void paintBackground(Graphics2D g, Dimension screen) {
+		CompletableFuture<BufferedImage> loading = Theme.bgImage;
+		BufferedImage bgImage = loading == null ? null : loading.getNow(null);
+		if (bgImage == null) { // not loaded yet (or couldn't be loaded)
+			g.setColor(background);
+			g.fillRect(0, 0, screen.width, screen.height);
+			return;
+		}
+
+		// the cache is made in device pixels, so that it's not blurry on scaled (HiDPI) screens
+		AffineTransform transform = g.getTransform();
+		int width = (int) Math.ceil(screen.width * transform.getScaleX());
+		int height = (int) Math.ceil(screen.height * transform.getScaleY());
+		if (width <= 0 || height <= 0) // minimized or being resized, there is nothing to paint
+			return;
+		BufferedImage cache = bgCache;
+		if (cache == null || cache.getWidth() != width || cache.getHeight() != height
+				|| bgCacheColor != background.getRGB() || bgCacheDim != backgroundDim) {
+			cache = g.getDeviceConfiguration().createCompatibleImage(width, height, Transparency.OPAQUE);
+			Graphics2D cacheGraphics = cache.createGraphics();
+			cacheGraphics.setRenderingHints(g.getRenderingHints());
+			cacheGraphics.scale((double) width / screen.width, (double) height / screen.height);
+			paintBackground(cacheGraphics, screen, bgImage);
+			cacheGraphics.dispose();
+			bgCache = cache;
+			bgCacheColor = background.getRGB();
+			bgCacheDim = backgroundDim;
+		}
+		g.drawImage(cache, 0, 0, screen.width, screen.height, null);
+	}
+
+	// the cached background is made again on the next paint
+	public static void invalidateBackground() {
+		bgCache = null;
+	}
+
+	private static void paintBackground(Graphics2D g, Dimension screen, BufferedImage bgImage) {
 		double scaleX = screen.getWidth() / bgImage.getWidth();
 		double scaleY = screen.getHeight() / bgImage.getHeight();
 		double scale = Math.max(scaleX, scaleY); // fill entire screen
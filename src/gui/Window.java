@@ -1,6 +1,7 @@
 package gui;
 
 import gui.scenes.*;
+import main.Instrumentation;
 
 import javax.swing.*;
 import java.awt.*;
@@ -36,6 +37,7 @@ public final class Window {
 	private Point lastMousePosition = new Point();
 	private long lastMouseMoveTime;
 	private boolean mouseHid;
+	private Timer mouseHider; // hides the mouse once it's inactive for too long, restarted when it moves
 
 	private Scene oldScene; // being null indicates no transition animation currently
 	private long sceneChangeTime;
@@ -44,8 +46,8 @@ public final class Window {
 	public Window() {
 		fontRenderContext = new FontRenderContext(null, true, true);
 
-		initFrame();
-		initScenes();
+		Instrumentation.time("Window.initFrame", this::initFrame);
+		Instrumentation.time("Window.initScenes", this::initScenes);
 		frame.setVisible(true);
 	}
 
@@ -141,6 +143,8 @@ public final class Window {
 			}
 		};
 
+		Theme.onBackgroundLoaded(() -> SwingUtilities.invokeLater(content::repaint));
+
 		sceneTransitionAnimate = new AnimatingElement(content::repaint);
 		sceneTransitionAnimate.setDisplayed(true);
 
@@ -168,6 +172,7 @@ public final class Window {
 			public void componentResized(ComponentEvent e) {
 				Dimension size = getSize();
 
+				Theme.invalidateBackground();
 				scene.onContainerSizeChange(size); // relocate elements if needed
 				windowElements.forEach(element -> element.onContainerSizeChange(size));
 				if (oldScene != null)
@@ -181,6 +186,7 @@ public final class Window {
 				lastMousePosition = mouseInWindow;
 				if (mouseHid)
 					showMouse();
+				mouseHider.restart();
 
 				// as position is changed, mouse might be no longer atop the window without elements noticing
 				MouseEvent mouseMove = new MouseEvent(content, 0, lastMouseMoveTime, 0,
@@ -216,6 +222,7 @@ public final class Window {
 			} else if (passed < SCENE_TRANSITION_PERIOD + HoverCalc.AFT_STABILIZED_SPARE_DELAY) {
 				scene.paint(g, null);
 			} else { // halt the animation
+				oldScene.releaseElementsImage();
 				oldScene = null;
 				sceneTransitionAnimate.setActive(false);
 				scene.paint(g, null);
@@ -281,6 +288,7 @@ public final class Window {
 		lastMouseMoveTime = e.getWhen();
 		if (mouseHid)
 			showMouse();
+		mouseHider.restart();
 	}
 
 	private void hideMouse() {
@@ -293,22 +301,11 @@ public final class Window {
 		content.setCursor(Cursor.getDefaultCursor());
 	}
 
-	// the process which checks if the mouse has been inactive for too long and hides it
+	// hides the mouse if it isn't moved for HIDE_MOUSE_AFT_INACTIVE ms
 	private void startMouseHider() {
-		new Thread(() -> {
-			while (true) {
-				try {
-					Thread.sleep(100);
-				} catch (InterruptedException e) {
-					e.printStackTrace();
-				}
-				if (!mouseHid) {
-					long t = System.currentTimeMillis();
-					if (t > lastMouseMoveTime + HIDE_MOUSE_AFT_INACTIVE)
-						hideMouse();
-				}
-			}
-		}).start();
+		mouseHider = new Timer(HIDE_MOUSE_AFT_INACTIVE, e -> hideMouse());
+		mouseHider.setRepeats(false);
+		mouseHider.start();
 	}
 
 	protected Point getMousePosition() {
@@ -324,6 +321,8 @@ public final class Window {
 
 	public void changeScene(Scene s) {
 		s.onContainerSizeChange(getSize()); // the scene wasn't receiving resize info until now
+		if (oldScene != null && oldScene != s) // changed again during the transition
+			oldScene.releaseElementsImage();
 		(oldScene = scene).onShut();
 		(scene = s).onDisplay();
 
@@ -331,6 +330,9 @@ public final class Window {
 		sceneTransitionAnimate.setActive(true);
 	}
 
+	/* The RepaintManager already joins areas requested before the next paint
+	 * (like the elements repainted by one animation frame) into one repaint.
+	 */
 	protected void repaint(Rectangle area) {
 		content.repaint(area);
 	}
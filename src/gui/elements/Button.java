@@ -76,6 +76,11 @@ public class Button extends Element {
 		g.fill(area);
 	}
 
+	@Override
+	protected Rectangle getPaintArea() {
+		return getBounds().getRectangleExpanded(EXPAND + 1);
+	}
+
 	private Area getTextArea(Graphics2D g) {
 		return getTextArea(text, centerStringX(g, text, x() + w() / 2), centerStringY(g, y() + h() / 2), g);
 	}
@@ -84,6 +84,11 @@ public class HorizontalRadioButtons extends Element {
 		g.translate(-translateX, -translateY);
 	}
 
+	@Override
+	protected Rectangle getPaintArea() {
+		return getBounds().getRectangleExpanded(OUTLINE_WIDTH_HOVERED);
+	}
+
 	// prepare necessary values for quick repaint in general cases, etc.
 	private void renderPaintingComponents() {
 		FontMetrics fm = new Canvas().getFontMetrics(Theme.getUIFont());
@@ -51,6 +51,9 @@ public class Label extends Element {
 
 	@Override
 	protected void paint(Graphics2D g) {
+		Shape clipBefore = g.getClip();
+		// only the bounds are repainted, so text going outside them would be partly drawn and left behind
+		g.clip(getPaintArea());
 		g.setFont(font);
 
 		if (textArea == null) {
@@ -78,6 +81,7 @@ public class Label extends Element {
 		}
 
 		g.translate(-tx, -ty);
+		g.setClip(clipBefore);
 	}
 
 	private Area getTextArea(String text, Graphics2D g) {
@@ -108,7 +108,7 @@ public class TextField extends Element {
 	protected void paint(Graphics2D g) {
 		Shape clipBefore = g.getClip();
 		Composite compositeBefore = g.getComposite();
-		g.setClip(x(), y() - slideWhenFading, w(), h() + slideWhenFading); // don't let the text go outside bounds
+		g.clip(getPaintArea()); // don't let the text go outside bounds (nor the area being repainted)
 
 		paintHintText(g);
 
@@ -143,6 +143,11 @@ public class TextField extends Element {
 		g.setComposite(compositeBefore);
 	}
 
+	@Override
+	protected Rectangle getPaintArea() {
+		return new Rectangle(x(), y() - slideWhenFading, w(), h() + slideWhenFading);
+	}
+
 	private void paintHintText(Graphics2D g) {
 		double phase = hintDisplayCalc.getSine();
 		if (phase == 0)
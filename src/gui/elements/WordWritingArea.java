@@ -2,6 +2,9 @@ package gui.elements;
 
 import gui.*;
 import recognition.Curves;
+import recognition.IncrementalRecognition;
+import recognition.StrokePoints;
+import recognition.WritingLog;
 import recognition.WrittenAnswer;
 
 import javax.swing.*;
@@ -12,7 +15,9 @@ import java.awt.geom.Line2D;
 import java.awt.geom.Path2D;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -20,24 +25,40 @@ public class WordWritingArea extends Element {
 	/* Smoothness parameter (when animating stroke removal, AWT
 	 * curves are not available and have to be fully pre-calculated)
 	 */
-	private static final int CURVE_PARTS_PRECISION = 16;
+	public static final int CURVE_PARTS_PRECISION = 16;
 
 	private final int expandRepaint; // the stroke can go slightly outside of bounds due to its width
 	private Stroke graphicsStroke;
 	// used to detect whether or not the mouse started dragging from within the bounds
 	private boolean writingCurrently;
 	private List<List<Point2D>> writtenWord;
+	// processes finished strokes in the background while the rest of the word is written
+	private IncrementalRecognition recognition;
 	private Runnable onWritingReturned;
-
-	// strokeRemove has object parameters List<Point2D> (path), double[] (lengths), double (total length)
+	private Runnable onStrokeStarted;
+	// writings are only recorded if the recorder is set (see WritingLog)
+	private final WritingLog.Writer recorder;
+	// times of points of writtenWord (only kept if writings are recorded)
+	private List<long[]> writtenTimes;
+	// the last flushed writing and times of its points, until it's recorded
+	private List<List<Point2D>> submittedWriting;
+	private List<long[]> submittedTimes;
+
+	// strokeRemove has object parameter StrokePoints (smoothed path of the removed stroke)
 	private OneWayAnimating strokeRemove;
-	// writingRemove has object parameters List<List<Point2D>>, double[][], double[] (as in strokeRemove)
+	// writingRemove has object parameter List<StrokePoints> (as in strokeRemove)
 	private OneWayAnimating writingRemove;
+	// reused by paintFadingStroke to hold the remaining part of a stroke
+	private StrokePoints cutStroke = new StrokePoints(64);
 
 	public WordWritingArea(Runnable onWritingReturned, Scene container, Bounds bounds) {
 		super(container, bounds);
 		writtenWord = new ArrayList<>();
+		recognition = new IncrementalRecognition(CURVE_PARTS_PRECISION);
 		this.onWritingReturned = onWritingReturned;
+		recorder = WritingLog.getRecorder();
+		if (recorder != null)
+			writtenTimes = new ArrayList<>();
 
 		float strokeWidth = 4f;
 		expandRepaint = (int) Math.ceil(strokeWidth / 2f);
@@ -62,15 +83,22 @@ public class WordWritingArea extends Element {
 		g.translate(-tx, -ty);
 	}
 
+	@Override
+	protected Rectangle getPaintArea() {
+		return getBounds().getRectangleExpanded(expandRepaint);
+	}
+
+	// called when a new stroke is started, i.e. to drop recognition of the previous writing
+	public void setOnStrokeStarted(Runnable onStrokeStarted) {
+		this.onStrokeStarted = onStrokeStarted;
+	}
+
 	private void animateStrokeRemoval(Graphics2D g) {
 		double phase = strokeRemove.getPhase();
 		if (phase == 1)
 			return;
-		// noinspection unchecked
-		List<Point2D> removedStroke = (List<Point2D>) strokeRemove.getParameter(0);
-		double[] lengths = (double[]) strokeRemove.getParameter(1);
-		double totalLength = (double) strokeRemove.getParameter(2);
-		paintFadingStroke(removedStroke, lengths, totalLength, phase, g);
+		StrokePoints removedStroke = (StrokePoints) strokeRemove.getParameter(0);
+		paintFadingStroke(removedStroke, phase, g);
 	}
 
 	private void animateDrawingRemoval(Graphics2D g) {
@@ -79,22 +107,20 @@ public class WordWritingArea extends Element {
 			return;
 
 		// noinspection unchecked
-		List<List<Point2D>> paths = (List<List<Point2D>>) writingRemove.getParameter(0);
-		double[][] lengths = (double[][]) writingRemove.getParameter(1);
-		double[] totalLengths = (double[]) writingRemove.getParameter(2);
+		List<StrokePoints> paths = (List<StrokePoints>) writingRemove.getParameter(0);
 
 		// sizes 1 and 2 are special cases
 		if (paths.size() == 1) {
-			paintFadingStroke(paths.get(0), lengths[0], totalLengths[0], phase, g);
+			paintFadingStroke(paths.get(0), phase, g);
 		} else if (paths.size() == 2) {
 			double phase0 = phase * 4 / 3;
 			double phase1 = phase * 4 / 3 - 1 / 3d;
 
 			if (phase0 < 1)
-				paintFadingStroke(paths.get(0), lengths[0], totalLengths[0], phase0, g);
+				paintFadingStroke(paths.get(0), phase0, g);
 
 			if (phase1 > 0)
-				paintFadingStroke(paths.get(1), lengths[1], totalLengths[1], phase1, g);
+				paintFadingStroke(paths.get(1), phase1, g);
 			else {
 				g.setColor(Theme.getFG());
 				g.fill(graphicsStroke.createStrokedShape(Curves.getPath(paths.get(1))));
@@ -111,20 +137,19 @@ public class WordWritingArea extends Element {
 					g.fill(graphicsStroke.createStrokedShape(Curves.getPath(paths.get(i))));
 				} else if (phase < endPhase) {
 					double strokePhase = (phase - startPhase) / strokePhaseDuration;
-					paintFadingStroke(paths.get(i), lengths[i], totalLengths[i], strokePhase, g);
+					paintFadingStroke(paths.get(i), strokePhase, g);
 				}
 			}
 		}
 	}
 
 	// paint a stroke with cutting and fading out
-	private void paintFadingStroke(List<Point2D> stroke, double[] lengths, double totalLength,
-								   double phase, Graphics2D g) {
+	private void paintFadingStroke(StrokePoints stroke, double phase, Graphics2D g) {
 		double fadeAlpha = HoverCalc.easeSine(1d - phase);
 		double cutPhase = HoverCalc.easeCubicInOut(phase);
 		g.setColor(Theme.getFG(fadeAlpha));
-		List<Point2D> cut = Curves.cutStroke(stroke, lengths, totalLength, cutPhase);
-		g.fill(graphicsStroke.createStrokedShape(Curves.getPath(cut)));
+		Curves.cutStroke(stroke, cutPhase, cutStroke);
+		g.fill(graphicsStroke.createStrokedShape(Curves.getPath(cutStroke)));
 	}
 
 	// returns all strokes in a Path2D
@@ -146,44 +171,77 @@ public class WordWritingArea extends Element {
 
 		writingCurrently = false;
 		List<Point2D> removedStroke = writtenWord.remove(writtenWord.size() - 1);
+		removeLastTimes();
+		if (recognition.getStrokesAmount() > writtenWord.size())
+			recognition.removeLastStroke();
 
 		if (removedStroke.size() < 2)
 			return;
 
-		removedStroke = Curves.smooth(removedStroke, CURVE_PARTS_PRECISION);
-		double[] distances = new double[removedStroke.size()];
-		double totalStrokeLength = 0;
-		for (int i = 1; i < distances.length; i++) {
-			distances[i] = removedStroke.get(i - 1).distance(removedStroke.get(i));
-			totalStrokeLength += distances[i];
-		}
-
-		strokeRemove.animate(removedStroke, distances, totalStrokeLength);
+		strokeRemove.animate(Curves.smooth(removedStroke, CURVE_PARTS_PRECISION));
 	}
 
 	// removes all strokes and starts the animation
 	public WrittenAnswer flushWriting() {
+		submittedWriting = null;
 		if (writtenWord.isEmpty())
 			return new WrittenAnswer(Collections.emptyList());
-		List<List<Point2D>> removed = new ArrayList<>(writtenWord.size());
-		for (List<Point2D> stroke : writtenWord)
-			removed.add(Curves.smooth(stroke, CURVE_PARTS_PRECISION));
+		List<StrokePoints> removed = new ArrayList<>(writtenWord.size());
+		WrittenAnswer answer = recognition.finish(writtenWord, removed);
+		if (recorder != null) {
+			submittedWriting = new ArrayList<>(writtenWord);
+			submittedTimes = new ArrayList<>(writtenTimes);
+			writtenTimes.clear();
+		}
 		writtenWord.clear();
 
-		double[][] lengths = new double[removed.size()][];
-		double[] totalLengths = new double[removed.size()];
+		writingRemove.animate(removed);
+		return answer;
+	}
 
-		for (int i = 0; i < removed.size(); i++) {
-			List<Point2D> stroke = removed.get(i);
-			lengths[i] = new double[stroke.size()];
-			for (int j = 1; j < stroke.size(); j++) {
-				lengths[i][j] = stroke.get(j - 1).distance(stroke.get(j));
-				totalLengths[i] += lengths[i][j];
-			}
+	/* Called with the expected word when the writing returned by the last call
+	 * to flushWriting is submitted, records it if writings are recorded.
+	 */
+	public void recordSubmitted(String word) {
+		if (recorder == null || submittedWriting == null)
+			return;
+		try {
+			recorder.appendWriting(word, submittedWriting, submittedTimes);
+		} catch (IOException e) {
+			e.printStackTrace();
 		}
+		submittedWriting = null;
+		submittedTimes = null;
+	}
 
-		writingRemove.animate(removed, lengths, totalLengths);
-		return new WrittenAnswer(removed);
+	// records the verdict of the last submitted writing if writings are recorded
+	public void recordVerdict(boolean correct) {
+		if (recorder == null)
+			return;
+		try {
+			recorder.appendVerdict(correct);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	// keeps the time of the last point of the last stroke if writings are recorded
+	private void recordTime(long when) {
+		if (recorder == null)
+			return;
+		int stroke = writtenWord.size() - 1;
+		int points = writtenWord.get(stroke).size();
+		if (writtenTimes.size() == stroke)
+			writtenTimes.add(new long[64]);
+		long[] times = writtenTimes.get(stroke);
+		if (times.length < points)
+			writtenTimes.set(stroke, times = Arrays.copyOf(times, points * 2));
+		times[points - 1] = when;
+	}
+
+	private void removeLastTimes() {
+		if (recorder != null)
+			writtenTimes.remove(writtenTimes.size() - 1);
 	}
 
 	@Override
@@ -196,7 +254,10 @@ public class WordWritingArea extends Element {
 			translated.translate(-x(), -y());
 
 			writtenWord.add(new ArrayList<>(Collections.singletonList(translated)));
+			recordTime(e.getWhen());
 			writingCurrently = true;
+			if (onStrokeStarted != null)
+				onStrokeStarted.run();
 		} else if (SwingUtilities.isMiddleMouseButton(e)) {
 			if (!writingCurrently)
 				onWritingReturned.run();
@@ -214,8 +275,12 @@ public class WordWritingArea extends Element {
 		// check if the last stroke is too short and remove if necessary
 		List<Point2D> lastStroke = writtenWord.get(writtenWord.size() - 1);
 		boolean isLastStrokeValid = lastStroke.size() >= 2; // 2 is the minimum stroke size
-		if (!isLastStrokeValid)
+		if (isLastStrokeValid)
+			recognition.addStroke(lastStroke);
+		else {
 			writtenWord.remove(writtenWord.size() - 1);
+			removeLastTimes();
+		}
 		writingCurrently = false;
 		repaintExp();
 	}
@@ -229,13 +294,16 @@ public class WordWritingArea extends Element {
 
 		if (contains(e.getPoint())) { // just add a point
 			writtenWord.get(writtenWord.size() - 1).add(p);
+			recordTime(e.getWhen());
 		} else { // process going outside of bounds (find a point where mouse left the bounds)
 			List<Point2D> lastStroke = writtenWord.get(writtenWord.size() - 1);
 			Point2D lastPoint = lastStroke.get(lastStroke.size() - 1);
 
 			Point2D exitPoint = getExitPoint(new Rectangle(0, 0, w(), h()), lastPoint, p);
 			lastStroke.add(exitPoint);
+			recordTime(e.getWhen());
 			writingCurrently = false; // stop reacting to dragging (finish writing this stroke)
+			recognition.addStroke(lastStroke);
 		}
 		repaintExp();
 	}
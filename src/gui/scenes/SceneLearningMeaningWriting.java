@@ -3,15 +3,22 @@ package gui.scenes;
 import cards.Card;
 import cards.CardsMode;
 import cards.LearningScene;
+import gui.AnimatingElement;
 import gui.Bounds;
 import gui.Theme;
 import gui.Window;
 import gui.elements.Button;
 import gui.elements.Label;
 import gui.elements.WordWritingArea;
+import recognition.LatencyHistogram;
+import recognition.RecognitionMetrics;
 import recognition.Writings;
 import recognition.WrittenAnswer;
 
+import javax.swing.*;
+import java.awt.event.KeyEvent;
+import java.util.concurrent.CompletableFuture;
+
 public class SceneLearningMeaningWriting extends LearningScene {
 	private CardsMode mode;
 
@@ -19,6 +26,13 @@ public class SceneLearningMeaningWriting extends LearningScene {
 	private Label meaning;
 	private WordWritingArea writingArea;
 	private Label hint;
+	// recognition of the last submitted writing, null if there is none in progress
+	private CompletableFuture<Boolean> recognition;
+	// recognition metrics shown on F3 (also enables recording them while shown)
+	private boolean metricsShown;
+	// whether metrics were already recorded before the overlay was shown (i.e. enabled through JMX)
+	private boolean metricsEnabledBefore;
+	private Label isCorrectMetrics, compareMetrics;
 
 	public SceneLearningMeaningWriting(Window holder) {
 		super(holder);
@@ -26,19 +40,91 @@ public class SceneLearningMeaningWriting extends LearningScene {
 		reading = new Label("", Theme.getFontJapanese(), this, new Bounds(0, -275, 1000, 100, 0, 0));
 		meaning = new Label("", Theme.getFontEnglish(), this, new Bounds(0, -175, 1000, 150, 0, 0));
 		writingArea = new WordWritingArea(this::handleInput, this, new Bounds(0, 75, 1000, 350, 0, 0));
+		writingArea.setOnStrokeStarted(this::cancelRecognition);
 		hint = new Label("", Theme.getFontJapanese(), this, new Bounds(0, 300, 1000, 100, 0, 0));
+		isCorrectMetrics = new Label("", -1, this, new Bounds(10, 10, 700, 24));
+		compareMetrics = new Label("", -1, this, new Bounds(10, 34, 700, 24));
 
 		addElement(reading);
 		addElement(meaning);
 		addElement(writingArea);
 		addElement(hint);
+		addElement(isCorrectMetrics);
+		addElement(compareMetrics);
 		addElement(new Button("Return", () -> changeScene(sceneMain), this, new Bounds(-65, -10, 125, 30, 1, 1)));
 	}
 
 	private void handleInput() {
+		if (recognition != null) // the previous writing is still being recognized
+			return;
+
 		WrittenAnswer answer = writingArea.flushWriting();
-		boolean correct = Writings.isCorrect(answer, mode.getCurrent().getWord());
-		mode.next(this, correct);
+		String word = mode.getCurrent().getWord();
+		writingArea.recordSubmitted(word);
+		CompletableFuture<Boolean> started = Writings.isCorrectAsync(answer, word);
+		recognition = started;
+		started.whenComplete((result, e) -> SwingUtilities.invokeLater(() -> {
+			if (recognition != started) // cancelled while the result was being passed
+				return;
+			recognition = null;
+			boolean correct;
+			if (e == null) {
+				correct = result;
+			} else { // the writing couldn't be recognized, so it's not accepted
+				e.printStackTrace();
+				correct = false;
+			}
+			writingArea.recordVerdict(correct);
+			updateMetrics();
+			mode.next(this, correct);
+		}));
+	}
+
+	// the user started writing again, so the submitted writing is no longer needed
+	private void cancelRecognition() {
+		if (recognition != null) {
+			recognition.cancel(false);
+			recognition = null;
+		}
+	}
+
+	@Override
+	protected void keyPressed(KeyEvent e) {
+		super.keyPressed(e);
+		if (e.getKeyCode() == KeyEvent.VK_F3) {
+			metricsShown = !metricsShown;
+			if (metricsShown) {
+				metricsEnabledBefore = RecognitionMetrics.isEnabled();
+				RecognitionMetrics.setEnabled(true);
+			} else {
+				RecognitionMetrics.setEnabled(metricsEnabledBefore);
+			}
+			updateMetrics();
+		}
+	}
+
+	private void updateMetrics() {
+		if (!metricsShown) {
+			isCorrectMetrics.changeText("");
+			compareMetrics.changeText("");
+			return;
+		}
+
+		LatencyHistogram isCorrect = RecognitionMetrics.getIsCorrectLatency();
+		long calls = isCorrect.getCount();
+		long frame = 1_000_000_000L / AnimatingElement.getFramerate();
+		long allocated = RecognitionMetrics.getAllocatedBytesPerIsCorrect();
+		isCorrectMetrics.changeText(String.format("isCorrect: %d calls, p50 %.1f ms, p99 %.1f ms, max %.1f ms, "
+						+ "%d over a frame, %s",
+				calls, isCorrect.getPercentile(50) / 1e6, isCorrect.getPercentile(99) / 1e6,
+				isCorrect.getMax() / 1e6, isCorrect.getCountAbove(frame),
+				allocated < 0 ? "allocations unknown" : allocated / 1024 + " KB per call"));
+
+		LatencyHistogram compare = RecognitionMetrics.getCompareLatency();
+		compareMetrics.changeText(String.format("compareToWritten: %d calls, p50 %.1f us, p99 %.1f us, max %.1f us, "
+						+ "%.1f candidates per isCorrect",
+				compare.getCount(), compare.getPercentile(50) / 1e3, compare.getPercentile(99) / 1e3,
+				compare.getMax() / 1e3, calls == 0 ? 0d : (double) RecognitionMetrics.getCandidatesEvaluated() / calls));
 	}
 
 	@Override
@@ -64,6 +150,12 @@ public class SceneLearningMeaningWriting extends LearningScene {
 		hint.changeText(c.getWord());
 	}
 
+	@Override
+	protected void onShut() {
+		super.onShut();
+		cancelRecognition();
+	}
+
 	@Override
 	protected void removeHint() {
 		hint.changeText("");
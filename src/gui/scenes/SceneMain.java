@@ -5,10 +5,17 @@ import gui.Bounds;
 import gui.Scene;
 import gui.Window;
 import gui.elements.Button;
+import gui.elements.Label;
+
+import java.awt.Rectangle;
 
 public class SceneMain extends Scene {
+	private Label loadingLabel;
+
 	public SceneMain(Window holder) {
 		super(holder);
+		loadingLabel = new Label("Loading words", this, new Bounds(0, 110, 500, 30, 0, 0));
+		addElement(loadingLabel);
 		addElement(new Button("Select mode and words", () -> changeScene(sceneModeWordsSelection),
 				this, new Bounds(0, -60, 270, 30, 0, 0)));
 		addElement(new Button("Go!", () -> Cards.start(this), this, new Bounds(0, -20, 270, 30, 0, 0)));
@@ -19,4 +26,17 @@ public class SceneMain extends Scene {
 		addElement(new Button("About", () -> {
 		}, this, new Bounds(70, 60, 130, 30, 0, 0)));
 	}
+
+	public void setLoadingProgress(int loadedFiles, int files) {
+		loadingLabel.setText("Loading words: " + loadedFiles + " of " + files + " files");
+		repaint(new Rectangle(getSize()));
+	}
+
+	public void onWordsLoaded() {
+		int errors = Cards.getLoadingErrors().size();
+		if (errors == 0)
+			loadingLabel.changeText("");
+		else
+			loadingLabel.changeText(errors + (errors == 1 ? " line" : " lines") + " of words files couldn't be read");
+	}
 }
@@ -6,6 +6,7 @@ import gui.Scene;
 import gui.Window;
 import gui.elements.*;
 
+import java.awt.Rectangle;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -24,16 +25,9 @@ public class SceneModeWordsSelection extends Scene {
 	public SceneModeWordsSelection(Window holder) {
 		super(holder);
 
-		List<String> selectedFiles = Cards.getSelectedFiles();
-
-		fileNames = Cards.getFilesList().toArray(new String[0]);
-		fileCheckboxes = new Checkbox[fileNames.length];
-		for (int i = 0; i < fileCheckboxes.length; i++) {
-			Bounds b = new Bounds(100, 100 + i * 35, 200, 35);
-			fileCheckboxes[i] = new Checkbox(fileNames[i], this, b);
-			fileCheckboxes[i].setChecked(selectedFiles.contains(fileNames[i]));
-			addElement(fileCheckboxes[i]);
-		}
+		// checkboxes of files are added when the files are loaded
+		fileNames = new String[0];
+		fileCheckboxes = new Checkbox[0];
 
 		cardsModeButtons = new HorizontalRadioButtons(CARD_MODES, 1, this, new Bounds(-50, 80, 500, 40, 1, -1));
 		cardsModeButtons.setSelectedButton(Cards.getCardsMode());
@@ -54,7 +48,27 @@ public class SceneModeWordsSelection extends Scene {
 		addElement(new Button("Apply", this::apply, this, new Bounds(-65, -10, 125, 30, 1, 1)));
 	}
 
+	// adds checkboxes of the loaded word files
+	public void onWordsLoaded() {
+		List<String> selectedFiles = Cards.getSelectedFiles();
+
+		fileNames = Cards.getFilesList().toArray(new String[0]);
+		fileCheckboxes = new Checkbox[fileNames.length];
+		for (int i = 0; i < fileCheckboxes.length; i++) {
+			Bounds b = new Bounds(100, 100 + i * 35, 200, 35);
+			fileCheckboxes[i] = new Checkbox(fileNames[i], this, b);
+			fileCheckboxes[i].setChecked(selectedFiles.contains(fileNames[i]));
+			addElement(fileCheckboxes[i]);
+		}
+		onContainerSizeChange(getSize());
+		repaint(new Rectangle(getSize()));
+	}
+
 	private void apply() {
+		if (!Cards.isLoaded()) {
+			warningLabel.changeText("Words are still loading");
+			return;
+		}
 		List<String> selected = getSelectedFiles();
 		if (selected.isEmpty()) {
 			warningLabel.changeText("Please select at least one words file");
@@ -4,14 +4,49 @@ import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
 
 public final class Assets {
 	private static final String DIRECTORY = "assets/";
+	// loads assets in the background (see loadAsync), threads don't keep the application running
+	private static final ExecutorService loader = Executors.newCachedThreadPool(task -> {
+		Thread thread = new Thread(task, "Assets loader");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	public static File getFile(String name) {
+		return new File(DIRECTORY + name);
+	}
 
 	public static InputStream getStream(String name) throws FileNotFoundException {
 		return new FileInputStream(DIRECTORY + name);
 	}
 
+	public static OutputStream getOutputStream(String name) throws FileNotFoundException {
+		return new FileOutputStream(DIRECTORY + name);
+	}
+
+	/* Writes a file through a temporary one, so that it's never left half-written.
+	 * The file can't be mapped (see mapFile), as mapped files can't be replaced
+	 * on some systems.
+	 */
+	public static void replaceFile(String name, byte[] content) throws IOException {
+		File file = getFile(name);
+		File temporary = getFile(name + ".tmp");
+		file.getAbsoluteFile().getParentFile().mkdirs();
+		Files.write(temporary.toPath(), content);
+		Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
 	public static byte[] loadStream(InputStream in) throws IOException {
 		ByteArrayOutputStream out = new ByteArrayOutputStream();
 		int read;
@@ -19,6 +54,7 @@ public final class Assets {
 		while ((read = in.read(buffer)) != -1)
 			out.write(buffer, 0, read);
 		in.close();
+		Instrumentation.count("bytes.read", out.size());
 		return out.toByteArray();
 	}
 
@@ -26,12 +62,47 @@ public final class Assets {
 		return loadStream(getStream(name));
 	}
 
+	/* Reads a part of a file (less if the file ends earlier) without mapping
+	 * it, i.e. to check a header before deciding whether the file is used.
+	 */
+	public static ByteBuffer readPart(String name, long position, int length) throws IOException {
+		try (RandomAccessFile file = new RandomAccessFile(DIRECTORY + name, "r")) {
+			FileChannel channel = file.getChannel();
+			ByteBuffer buffer = ByteBuffer.allocate(length);
+			while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) != -1) ;
+			Instrumentation.count("bytes.read", buffer.position());
+			return buffer.flip();
+		}
+	}
+
+	/* Maps a file into memory without copying it to the heap. The mapping
+	 * stays valid after the channel is closed, and pages are only read
+	 * from disk when they are accessed.
+	 */
+	public static MappedByteBuffer mapFile(String name) throws IOException {
+		try (RandomAccessFile file = new RandomAccessFile(DIRECTORY + name, "r")) {
+			FileChannel channel = file.getChannel();
+			Instrumentation.count("bytes.mapped", channel.size());
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+	}
+
+	// runs a loading method (like loadImage) in the background
+	public static <T> CompletableFuture<T> loadAsync(Supplier<T> load) {
+		return CompletableFuture.supplyAsync(load, loader);
+	}
+
+	// the image is decoded while the file is read, without buffering the whole file first
 	public static BufferedImage loadImage(String name) {
-		try {
-			return ImageIO.read(new ByteArrayInputStream(loadBytes(name)));
-		} catch (FileNotFoundException e) {
+		File file = getFile(name);
+		if (!file.isFile()) {
 			System.err.println("File not found: " + name);
 			return null;
+		}
+		try {
+			BufferedImage image = ImageIO.read(file);
+			Instrumentation.count("bytes.read", file.length());
+			return image;
 		} catch (IOException e) {
 			e.printStackTrace();
 			return null;
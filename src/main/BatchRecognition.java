@@ -0,0 +1,258 @@
+package main;
+
+import cards.Cards;
+import gui.elements.WordWritingArea;
+import recognition.ComparisonResultEntry;
+import recognition.Curves;
+import recognition.StrokePoints;
+import recognition.WritingLog;
+import recognition.Writings;
+import recognition.WrittenAnswer;
+
+import java.awt.geom.Point2D;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/* Recognizes recorded writings without the window and reports how fast
+ * and how accurate recognition is. Usage:
+ *
+ *   java -Djava.awt.headless=true main.BatchRecognition [options] <writings> [words files]
+ *
+ * Words files are names from the words directory (as shown in the app),
+ * all of them are used if none are given. Options:
+ *   -k <n>       number of ranked words to check (5 by default)
+ *   -warmup <n>  passes over the writings before measuring (1 by default)
+ *   -repeat <n>  measured passes over the writings (1 by default)
+ *
+ * The writings file is either a log recorded by the app (see WritingLog),
+ * in which case the verdicts are also compared to the recorded ones, or
+ * a text file with one writing per line: the expected word and strokes
+ * separated by tabs, each stroke is x and y coordinates of its points
+ * separated by spaces (as in WordWritingArea, in pixels). Empty lines
+ * and lines starting with # are skipped.
+ */
+public class BatchRecognition {
+	private static final int DEFAULT_K = 5;
+
+	public static void main(String[] args) {
+		System.setProperty("java.awt.headless", "true");
+
+		int k = DEFAULT_K, warmup = 1, repeat = 1;
+		List<String> rest = new ArrayList<>();
+		try {
+			for (int i = 0; i < args.length; i++) {
+				switch (args[i]) {
+					case "-k":
+						k = Integer.parseInt(args[++i]);
+						break;
+					case "-warmup":
+						warmup = Integer.parseInt(args[++i]);
+						break;
+					case "-repeat":
+						repeat = Integer.parseInt(args[++i]);
+						break;
+					default:
+						rest.add(args[i]);
+				}
+			}
+		} catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+			rest.clear();
+		}
+		if (rest.isEmpty() || k < 1 || warmup < 0 || repeat < 1) {
+			System.err.println("Usage: BatchRecognition [-k <n>] [-warmup <n>] [-repeat <n>] <writings> [words files]");
+			System.exit(2);
+		}
+
+		Cards.init();
+		List<String> files = rest.size() > 1 ? rest.subList(1, rest.size()) : Cards.getFilesList();
+		for (String file : files) {
+			if (!Cards.getFilesList().contains(file)) {
+				System.err.println("Unknown words file: " + file);
+				System.exit(2);
+			}
+		}
+		Cards.setConfiguration(new ArrayList<>(files), Cards.getCardsMode(), Cards.getAnswerMode());
+
+		List<Sample> samples;
+		try {
+			samples = readSamples(rest.get(0));
+		} catch (IOException e) {
+			e.printStackTrace();
+			System.exit(1);
+			return;
+		}
+		if (samples.isEmpty()) {
+			System.err.println("No writings to recognize");
+			System.exit(1);
+		}
+
+		Set<String> candidates = new HashSet<>();
+		Cards.getCurrentList().forEach(card -> candidates.add(card.getWord()));
+		int outside = 0;
+		for (Sample s : samples)
+			if (!candidates.contains(s.word)) outside++;
+
+		for (int i = 0; i < warmup; i++)
+			run(samples, k, null);
+		Report report = new Report(samples.size() * repeat);
+		long start = System.nanoTime();
+		for (int i = 0; i < repeat; i++)
+			run(samples, k, report);
+		long total = System.nanoTime() - start;
+
+		System.out.println("words files: " + String.join(", ", files));
+		System.out.println("candidates: " + candidates.size() + ", writings: " + samples.size()
+				+ (outside > 0 ? " (" + outside + " of them not in the words files)" : "")
+				+ ", passes: " + repeat);
+		System.out.printf("throughput: %.1f writings/s%n", report.size * 1e9 / total);
+		report.print(k);
+	}
+
+	// recognizes every sample, adding the results to the report if it's not null
+	private static void run(List<Sample> samples, int k, Report report) {
+		for (Sample s : samples) {
+			long start = System.nanoTime();
+			List<StrokePoints> strokes = new ArrayList<>(s.writing.size());
+			s.writing.forEach(stroke -> strokes.add(Curves.smooth(stroke, WordWritingArea.CURVE_PARTS_PRECISION)));
+			WrittenAnswer answer = WrittenAnswer.fromStrokes(strokes);
+			long prepared = System.nanoTime();
+			boolean correct = Writings.isCorrect(answer, s.word);
+			long checked = System.nanoTime();
+			List<ComparisonResultEntry> ranked = Writings.rankCandidates(answer, k);
+			long end = System.nanoTime();
+
+			if (report != null) {
+				int rank = -1;
+				for (int i = 0; i < ranked.size() && rank == -1; i++)
+					if (ranked.get(i).getWord().equals(s.word)) rank = i;
+				report.add(prepared - start, checked - prepared, end - checked, correct, rank);
+				if (s.recorded != null)
+					report.addRecorded(correct == s.recorded);
+			}
+		}
+	}
+
+	private static List<Sample> readSamples(String fileName) throws IOException {
+		List<Sample> samples = new ArrayList<>();
+		try (InputStream in = new BufferedInputStream(new FileInputStream(fileName))) {
+			in.mark(8);
+			if (WritingLog.isLog(in)) {
+				for (WritingLog.Entry entry : WritingLog.read(in)) {
+					try {
+						samples.add(new Sample(entry.getWord(), entry.getWriting(), entry.getVerdict()));
+					} catch (IllegalArgumentException e) {
+						System.err.println(fileName + ": " + e.getMessage());
+					}
+				}
+				return samples;
+			}
+			in.reset();
+		}
+
+		try (BufferedReader in = new BufferedReader(new InputStreamReader(
+				new FileInputStream(fileName), StandardCharsets.UTF_8))) {
+			String line;
+			int lineNumber = 0;
+			while ((line = in.readLine()) != null) {
+				lineNumber++;
+				if (line.isBlank() || line.startsWith("#"))
+					continue;
+				try {
+					samples.add(Sample.parse(line));
+				} catch (IllegalArgumentException e) {
+					System.err.println(fileName + ":" + lineNumber + ": " + e.getMessage());
+				}
+			}
+		}
+		return samples;
+	}
+
+	private static class Sample {
+		final String word;
+		final List<List<Point2D>> writing;
+		final Boolean recorded; // the verdict given when the writing was recorded, null if unknown
+
+		private Sample(String word, List<List<Point2D>> writing, Boolean recorded) {
+			if (!Writings.isSupported(word))
+				throw new IllegalArgumentException(word + " contains 1 or more characters with unsupported writing");
+			this.word = word;
+			this.writing = writing;
+			this.recorded = recorded;
+		}
+
+		static Sample parse(String line) {
+			String[] split = line.split("\t");
+			if (split.length < 2)
+				throw new IllegalArgumentException("a writing needs a word and at least 1 stroke");
+			List<List<Point2D>> writing = new ArrayList<>(split.length - 1);
+			for (int i = 1; i < split.length; i++) {
+				String[] coordinates = split[i].trim().split(" +");
+				if (coordinates.length < 2 || coordinates.length % 2 != 0)
+					throw new IllegalArgumentException("stroke " + i + " has an odd or too small number of coordinates");
+				List<Point2D> stroke = new ArrayList<>(coordinates.length / 2);
+				for (int j = 0; j < coordinates.length; j += 2)
+					stroke.add(new Point2D.Double(Double.parseDouble(coordinates[j]),
+							Double.parseDouble(coordinates[j + 1])));
+				writing.add(stroke);
+			}
+			return new Sample(split[0], writing, null);
+		}
+	}
+
+	private static class Report {
+		final int size;
+		final long[] prepare, check, rank; // nanoseconds
+		int amount, correct, first, inTop;
+		int recorded, sameAsRecorded; // writings with a recorded verdict
+
+		Report(int size) {
+			this.size = size;
+			prepare = new long[size];
+			check = new long[size];
+			rank = new long[size];
+		}
+
+		// rank is the position of the expected word in the ranking or -1 if it's not there
+		void add(long prepareTime, long checkTime, long rankTime, boolean correct, int rank) {
+			prepare[amount] = prepareTime;
+			check[amount] = checkTime;
+			this.rank[amount] = rankTime;
+			amount++;
+			if (correct) this.correct++;
+			if (rank == 0) first++;
+			if (rank != -1) inTop++;
+		}
+
+		void addRecorded(boolean same) {
+			recorded++;
+			if (same) sameAsRecorded++;
+		}
+
+		void print(int k) {
+			System.out.printf("accepted by isCorrect: %.2f%% (%d of %d)%n", 100.0 * correct / amount, correct, amount);
+			if (recorded > 0)
+				System.out.printf("same as recorded verdict: %.2f%% (%d of %d)%n",
+						100.0 * sameAsRecorded / recorded, sameAsRecorded, recorded);
+			System.out.printf("ranked first: %.2f%%, in top %d: %.2f%%%n",
+					100.0 * first / amount, k, 100.0 * inTop / amount);
+			System.out.println("latency, ms       p50      p90      p99      max");
+			printLatency("smoothing", prepare);
+			printLatency("isCorrect", check);
+			printLatency("ranking", rank);
+		}
+
+		private static void printLatency(String name, long[] times) {
+			long[] sorted = times.clone();
+			Arrays.sort(sorted);
+			System.out.printf("%-12s %8.3f %8.3f %8.3f %8.3f%n", name, percentile(sorted, 50),
+					percentile(sorted, 90), percentile(sorted, 99), sorted[sorted.length - 1] / 1e6);
+		}
+
+		// nearest-rank percentile in milliseconds
+		private static double percentile(long[] sorted, int p) {
+			int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+			return sorted[Math.max(0, rank - 1)] / 1e6;
+		}
+	}
+}
@@ -0,0 +1,207 @@
+package main;
+
+import javax.management.ObjectName;
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/* Named time spans and counters, i.e. of startup phases. They're always
+ * recorded (it's cheap), and can be seen through JMX if the JVM is started
+ * with -Dinstrumentation.jmx=true (the platform MBean server is slow to
+ * start, so it's not started otherwise), dumped as JSON with dump() or on
+ * exit if the JVM is started with -Dinstrumentation.dump=<file>. Times are
+ * in milliseconds since this class was first used, which is at the start of Main.
+ */
+public final class Instrumentation {
+	static final String OBJECT_NAME = "japanesewords:type=Instrumentation";
+	private static final String DUMP_PROPERTY = "instrumentation.dump";
+	private static final String JMX_PROPERTY = "instrumentation.jmx";
+	private static final long START = System.nanoTime();
+
+	private static final Queue<SpanRecord> spans = new ConcurrentLinkedQueue<>();
+	private static final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+	static {
+		registerMBean(OBJECT_NAME, new Bean());
+
+		String dumpFile = System.getProperty(DUMP_PROPERTY);
+		if (dumpFile != null) {
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				try {
+					dump(new File(dumpFile));
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}));
+		}
+	}
+
+	private Instrumentation() {
+	}
+
+	// starts a span, it's recorded when closed (for spans that end in another place than they start)
+	public static Span span(String name) {
+		return new Span(name);
+	}
+
+	// runs the action in a span
+	public static void time(String name, Runnable action) {
+		Span span = new Span(name);
+		try {
+			action.run();
+		} finally {
+			span.close();
+		}
+	}
+
+	// runs the action in a span, returning its result
+	public static <T, E extends Exception> T time(String name, Action<T, E> action) throws E {
+		Span span = new Span(name);
+		try {
+			return action.run();
+		} finally {
+			span.close();
+		}
+	}
+
+	public static void count(String name) {
+		count(name, 1);
+	}
+
+	public static void count(String name, long amount) {
+		counters.computeIfAbsent(name, n -> new LongAdder()).add(amount);
+	}
+
+	public static Map<String, Long> getCounters() {
+		Map<String, Long> result = new TreeMap<>();
+		counters.forEach((name, value) -> result.put(name, value.sum()));
+		return result;
+	}
+
+	// total time of spans with the same name, in milliseconds
+	public static Map<String, Double> getSpanTotals() {
+		Map<String, Double> result = new TreeMap<>();
+		spans.forEach(s -> result.merge(s.name, s.duration / 1e6, Double::sum));
+		return result;
+	}
+
+	public static String toJson() {
+		StringBuilder json = new StringBuilder();
+		json.append("{\n  \"timeMs\": ").append(millis(System.nanoTime() - START)).append(",\n  \"spans\": [");
+		List<SpanRecord> sorted = new ArrayList<>(spans);
+		sorted.sort(Comparator.comparingLong(s -> s.start));
+		for (int i = 0; i < sorted.size(); i++) {
+			SpanRecord s = sorted.get(i);
+			json.append(i == 0 ? "\n" : ",\n").append("    {\"name\": ").append(quote(s.name))
+					.append(", \"thread\": ").append(quote(s.thread))
+					.append(", \"startMs\": ").append(millis(s.start - START))
+					.append(", \"durationMs\": ").append(millis(s.duration)).append('}');
+		}
+		json.append(sorted.isEmpty() ? "],\n" : "\n  ],\n").append("  \"counters\": {");
+		Map<String, Long> values = getCounters();
+		int i = 0;
+		for (Map.Entry<String, Long> counter : values.entrySet()) {
+			json.append(i++ == 0 ? "\n" : ",\n").append("    ").append(quote(counter.getKey()))
+					.append(": ").append(counter.getValue());
+		}
+		json.append(values.isEmpty() ? "}\n}\n" : "\n  }\n}\n");
+		return json.toString();
+	}
+
+	public static void dump(File file) throws IOException {
+		try (Writer out = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+			out.write(toJson());
+		}
+	}
+
+	/* Registers an MBean in the platform MBean server in the background if
+	 * JMX is enabled (see JMX_PROPERTY), errors are only printed.
+	 */
+	public static void registerMBean(String objectName, Object bean) {
+		if (!Boolean.getBoolean(JMX_PROPERTY))
+			return;
+		Thread registration = new Thread(() -> {
+			try {
+				ManagementFactory.getPlatformMBeanServer().registerMBean(bean, new ObjectName(objectName));
+			} catch (Exception e) {
+				System.err.println("Unable to register " + objectName + ": " + e);
+			}
+		}, "MBean registration");
+		registration.setDaemon(true);
+		registration.start();
+	}
+
+	private static String millis(long nanos) {
+		return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+	}
+
+	private static String quote(String s) {
+		StringBuilder quoted = new StringBuilder("\"");
+		for (char c : s.toCharArray()) {
+			if (c == '"' || c == '\\')
+				quoted.append('\\').append(c);
+			else if (c < 0x20)
+				quoted.append(String.format("\\u%04x", (int) c));
+			else
+				quoted.append(c);
+		}
+		return quoted.append('"').toString();
+	}
+
+	@FunctionalInterface
+	public interface Action<T, E extends Exception> {
+		T run() throws E;
+	}
+
+	public static final class Span implements AutoCloseable {
+		private final String name;
+		private final long start = System.nanoTime();
+
+		private Span(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public void close() {
+			spans.add(new SpanRecord(name, Thread.currentThread().getName(), start, System.nanoTime() - start));
+		}
+	}
+
+	private static class SpanRecord {
+		final String name, thread;
+		final long start, duration; // nanoseconds
+
+		SpanRecord(String name, String thread, long start, long duration) {
+			this.name = name;
+			this.thread = thread;
+			this.start = start;
+			this.duration = duration;
+		}
+	}
+
+	private static class Bean implements InstrumentationMXBean {
+		@Override
+		public Map<String, Long> getCounters() {
+			return Instrumentation.getCounters();
+		}
+
+		@Override
+		public Map<String, Double> getSpanTotals() {
+			return Instrumentation.getSpanTotals();
+		}
+
+		@Override
+		public String getJson() {
+			return toJson();
+		}
+
+		@Override
+		public void dump(String fileName) throws IOException {
+			Instrumentation.dump(new File(fileName));
+		}
+	}
+}
@@ -0,0 +1,16 @@
+package main;
+
+import java.io.IOException;
+import java.util.Map;
+
+// JMX view of Instrumentation
+public interface InstrumentationMXBean {
+	Map<String, Long> getCounters();
+
+	// total time of spans with the same name, in milliseconds
+	Map<String, Double> getSpanTotals();
+
+	String getJson();
+
+	void dump(String fileName) throws IOException;
+}
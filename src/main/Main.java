@@ -1,11 +1,34 @@
 package main;
 
 import cards.Cards;
+import gui.Scene;
+import gui.Theme;
 import gui.Window;
 
+import javax.swing.*;
+import java.util.concurrent.CompletableFuture;
+
 public class Main {
 	public static void main(String[] args) {
-		Cards.init();
-		new Window();
+		// until the words are loaded and the window is ready to be used
+		Instrumentation.Span startup = Instrumentation.span("startup");
+		Theme.load(); // fonts and the background image are loaded while everything else is
+		// words are loaded while the window is made, the main scene shows the progress
+		CompletableFuture<Void> loading = Cards.load((loadedFiles, files) -> SwingUtilities.invokeLater(() -> {
+			if (Scene.sceneMain != null) // progress before the window is made is not shown
+				Scene.sceneMain.setLoadingProgress(loadedFiles, files);
+		}));
+		Instrumentation.time("Window", () -> {
+			new Window();
+		});
+		loading.whenComplete((result, e) -> SwingUtilities.invokeLater(() -> {
+			if (e != null) {
+				e.printStackTrace();
+				System.exit(1);
+			}
+			Scene.sceneMain.onWordsLoaded();
+			Scene.sceneModeWordsSelection.onWordsLoaded();
+			startup.close();
+		}));
 	}
 }
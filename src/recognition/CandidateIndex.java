@@ -0,0 +1,114 @@
+package recognition;
+
+import java.util.*;
+
+/* Words that a written answer is compared to in Writings.isCorrect,
+ * grouped by the number of strokes. Words with a different number
+ * of strokes are always the most dissimilar (see compareToWritten),
+ * so they never need to be compared. Within a group, candidates are
+ * ordered by how close their stroke starts and ends are to the answer
+ * on a coarse grid, so that a word more similar than the expected one
+ * (if there is any) is usually found after a few comparisons.
+ */
+final class CandidateIndex {
+	private static final int GRID_CELLS_PER_CHARACTER = 3;
+
+	private final Map<Integer, Candidate[]> byStrokesAmount;
+	private final Map<String, Candidate> byWord;
+	private final Candidate[] all; // indices are ids of candidates
+
+	// words have to be supported by Writings, repeating words are only added once
+	CandidateIndex(Collection<String> words) {
+		Map<Integer, List<Candidate>> groups = new HashMap<>();
+		byWord = new HashMap<>();
+		for (String word : new LinkedHashSet<>(words)) {
+			Candidate c = new Candidate(byWord.size(), word, Writings.getComparisonInfo(word));
+			groups.computeIfAbsent(c.reference.getStrokesAmount(), amount -> new ArrayList<>()).add(c);
+			byWord.put(word, c);
+		}
+		all = new Candidate[byWord.size()];
+		byWord.values().forEach(c -> all[c.id] = c);
+
+		byStrokesAmount = new HashMap<>();
+		groups.forEach((amount, list) -> byStrokesAmount.put(amount, list.toArray(new Candidate[0])));
+	}
+
+	/* Returns the words that can possibly be more similar to the answer than
+	 * 'except' (which is not included), the most likely ones go first.
+	 */
+	Candidate[] getCandidates(WrittenAnswer answer, String except) {
+		Candidate[] group = byStrokesAmount.get(answer.getStrokesAmount());
+		if (group == null)
+			return new Candidate[0];
+
+		// answer grid cells depend on word length because the answer is fit to it first
+		Map<Integer, int[]> answerCells = new HashMap<>();
+		long[] order = new long[group.length]; // grid distance in high bits, index in low bits
+		int amount = 0;
+		for (int i = 0; i < group.length; i++) {
+			Candidate c = group[i];
+			if (c.word.equals(except))
+				continue;
+			int[] cells = answerCells.computeIfAbsent(c.characters,
+					length -> answer.getGridCells(GRID_CELLS_PER_CHARACTER, length));
+			order[amount++] = (long) gridDistance(cells, c.cells) << 32 | i;
+		}
+
+		Arrays.sort(order, 0, amount);
+		Candidate[] result = new Candidate[amount];
+		for (int i = 0; i < amount; i++)
+			result[i] = group[(int) order[i]];
+		return result;
+	}
+
+	// returns all the words with the given number of strokes in the order they were added
+	Candidate[] getGroup(int strokesAmount) {
+		return byStrokesAmount.getOrDefault(strokesAmount, new Candidate[0]);
+	}
+
+	Candidate find(String word) {
+		return byWord.get(word);
+	}
+
+	Candidate[] getAll() {
+		return all;
+	}
+
+	/* Compares a candidate to the answer (see WrittenAnswer.compareToWritten),
+	 * using angle differences that were found while the answer was written if
+	 * they were found for this index.
+	 */
+	double compare(Candidate c, WrittenAnswer answer, double bound) {
+		RecognitionMetrics.candidateEvaluated();
+		double[] sums = answer.getAngleDifferenceSums(this);
+		if (sums != null)
+			return c.reference.compareToWrittenWithAngles(answer, sums[c.id]);
+		return c.reference.compareToWritten(answer, bound);
+	}
+
+	// sum of distances between corresponding cells (in cells, horizontally plus vertically)
+	private static int gridDistance(int[] cells1, int[] cells2) {
+		int sum = 0;
+		for (int i = 0; i < cells1.length; i++) {
+			sum += Math.abs((cells1[i] >>> 16) - (cells2[i] >>> 16));
+			sum += Math.abs((cells1[i] & 0xffff) - (cells2[i] & 0xffff));
+		}
+		return sum;
+	}
+
+	static final class Candidate {
+		final int id;
+		final String word;
+		final WrittenAnswer reference;
+		final int characters;
+		final int[] cells;
+
+		private Candidate(int id, String word, WrittenAnswer reference) {
+			this.id = id;
+			this.word = word;
+			this.reference = reference;
+			characters = reference.getCharacters();
+			cells = reference.getGridCells(GRID_CELLS_PER_CHARACTER);
+		}
+	}
+}
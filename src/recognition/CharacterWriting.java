@@ -8,7 +8,7 @@ public class CharacterWriting {
 	// this number was specified in all KanjiVG files
 	public static final int CHARACTER_BOX_SIZE = 109;
 
-	private Stroke[] strokes;
+	private final Stroke[] strokes;
 
 	CharacterWriting(ByteBuffer buffer) {
 		int strokesAmt = buffer.getInt();
@@ -25,4 +25,8 @@ public class CharacterWriting {
 		for (Stroke s : strokes)
 			toList.add(new Stroke(s, charPos));
 	}
+
+	Stroke[] getStrokes() {
+		return strokes;
+	}
 }
@@ -1,7 +1,5 @@
 package recognition;
 
-import java.util.List;
-
 // used in comparison of a written answer to make a list of possible words
 public class ComparisonResultEntry {
 	private String word;
@@ -12,18 +10,11 @@ public class ComparisonResultEntry {
 		this.difference = difference;
 	}
 
-	String getWord() {
+	public String getWord() {
 		return word;
 	}
 
-	double getDifference() {
+	public double getDifference() {
 		return difference;
 	}
-
-	public static boolean contains(List<ComparisonResultEntry> list, String word) {
-		for (ComparisonResultEntry c : list)
-			if (c.word.equals(word))
-				return true;
-		return false;
-	}
 }
@@ -3,35 +3,36 @@ package recognition;
 import java.awt.*;
 import java.awt.geom.*;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 // utility class for work with lists of points and curves
 public final class Curves {
-	// cuts a curve from start (t=0 means full stroke, t=0.9 means last 10% of the stroke)
-	public static List<Point2D> cutStroke(List<Point2D> stroke, double[] lengths, double totalLength, double t) {
-		double l = t * totalLength;
+	/* Cuts a stroke from start (t=0 means full stroke, t=0.9 means last 10% of the stroke).
+	 * The result is written to 'to' so that it can be reused between animation frames.
+	 */
+	public static void cutStroke(StrokePoints stroke, double t, StrokePoints to) {
+		to.clear();
+		double l = t * stroke.getTotalLength();
 		int partIndex = -1; // if 'l' will be above all lengths, set the part to last
 		for (int i = 1; i < stroke.size(); i++) {
-			if (l <= lengths[i]) {
+			if (l <= stroke.getLength(i)) {
 				partIndex = i - 1;
-				l /= lengths[i]; // set 'l' to be between 0 and 1
+				l /= stroke.getLength(i); // set 'l' to be between 0 and 1
 				break;
 			} else {
-				l -= lengths[i];
+				l -= stroke.getLength(i);
 			}
 		}
 		if (partIndex == -1) {
-			Point2D last = stroke.get(stroke.size() - 1);
-			return Arrays.asList(last, last);
+			int last = stroke.size() - 1;
+			to.add(stroke.getX(last), stroke.getY(last));
+			to.add(stroke.getX(last), stroke.getY(last));
+			return;
 		}
-		List<Point2D> result = new ArrayList<>(stroke.size() - partIndex);
-		Point2D pStart = tFunction(stroke.get(partIndex), stroke.get(partIndex + 1), l);
-		result.add(pStart);
+		to.add(tFunction(stroke.getX(partIndex), stroke.getX(partIndex + 1), l),
+				tFunction(stroke.getY(partIndex), stroke.getY(partIndex + 1), l));
 		for (int i = partIndex + 1; i < stroke.size(); i++)
-			result.add(stroke.get(i));
-
-		return result;
+			to.add(stroke.getX(i), stroke.getY(i));
 	}
 
 	/* The last part should only be appended if stroke is finished and will not be edited anymore,
@@ -50,15 +51,15 @@ public final class Curves {
 			return path;
 		}
 
-		Point2D firstSecondMid = mid(stroke.get(0), stroke.get(1));
-		path.lineTo(firstSecondMid.getX(), firstSecondMid.getY());
+		path.lineTo(mid(stroke.get(0).getX(), stroke.get(1).getX()), mid(stroke.get(0).getY(), stroke.get(1).getY()));
 
 		// start at i = 1 because first segment is already appended
 		for (int i = 1; i < stroke.size() - 1; i++) {
 			Point2D pCurrent = stroke.get(i);
-			Point2D pNext = mid(pCurrent, stroke.get(i + 1));
+			Point2D pNext = stroke.get(i + 1);
 
-			path.quadTo(pCurrent.getX(), pCurrent.getY(), pNext.getX(), pNext.getY());
+			path.quadTo(pCurrent.getX(), pCurrent.getY(),
+					mid(pCurrent.getX(), pNext.getX()), mid(pCurrent.getY(), pNext.getY()));
 		}
 
 		if (appendLastPart) {
@@ -73,55 +74,55 @@ public final class Curves {
 	 * can't be done with Path2D objects. parts argument is the
 	 * smoothness of a resulting curve (1 / parts is dt in Bezier curves)
 	 */
-	public static List<Point2D> smooth(List<Point2D> stroke, int parts) {
+	public static StrokePoints smooth(List<Point2D> stroke, int parts) {
 		if (stroke.size() < 2)
 			throw new IllegalArgumentException("argument stroke has " + stroke.size() + " points");
 		if (stroke.size() == 2)
-			return stroke;
-
-		List<Point2D> result = new ArrayList<>((stroke.size() - 2) * parts + 3);
-		result.add(stroke.get(0));
-		result.add(mid(stroke.get(0), stroke.get(1)));
+			return new StrokePoints(stroke);
 
-		if (stroke.size() == 1)
-			return result;
+		StrokePoints result = new StrokePoints((stroke.size() - 2) * parts + 3);
+		result.add(stroke.get(0).getX(), stroke.get(0).getY());
+		result.add(mid(stroke.get(0).getX(), stroke.get(1).getX()), mid(stroke.get(0).getY(), stroke.get(1).getY()));
 
+		double[] samples = new double[parts * 2];
+		double dt = 1d / parts;
 		for (int i = 1; i < stroke.size() - 1; i++) {
-			Point2D[] quad = new Point2D[3];
-			quad[0] = mid(stroke.get(i - 1), stroke.get(i));
-			quad[1] = stroke.get(i);
-			quad[2] = mid(stroke.get(i + 1), stroke.get(i));
-
-			for (int j = 1; j <= parts; j++)
-				result.add(calculateBezierList(quad, (double) j / parts));
+			Point2D prev = stroke.get(i - 1), current = stroke.get(i), next = stroke.get(i + 1);
+			sampleQuadratic(mid(prev.getX(), current.getX()), mid(prev.getY(), current.getY()),
+					current.getX(), current.getY(),
+					mid(next.getX(), current.getX()), mid(next.getY(), current.getY()),
+					dt, dt, parts, samples, 0);
+			result.add(samples, 0, parts);
 		}
 
-		result.add(stroke.get(stroke.size() - 1));
+		Point2D last = stroke.get(stroke.size() - 1);
+		result.add(last.getX(), last.getY());
 		return result;
 	}
 
-	/* Finds a point on path that goes from start
-	 * of path to end of path as t goes from 0.0 to 1.0.
-	 * lengths and totalLength need to be pre-calculated.
+	/* Finds a point on path that goes from start of path to end
+	 * of path as t goes from 0.0 to 1.0. X and Y of the point
+	 * are written to the first 2 elements of 'result'.
 	 */
-	public static Point2D findPointOnPath(List<Point2D> path, double[] lengths, double totalLength, double t) {
-		double l = t * totalLength; // set to the distance to travel along the 'path'
+	public static void findPointOnPath(StrokePoints path, double t, double[] result) {
+		double l = t * path.getTotalLength(); // set to the distance to travel along the 'path'
 		int partIndex = -1; // if 'l' will be above all lengths, return last point
 		for (int i = 1; i < path.size(); i++) {
-			if (l <= lengths[i]) {
+			if (l <= path.getLength(i)) {
 				partIndex = i - 1;
-				l /= lengths[i]; // set 'l' to be between 0 and 1
+				l /= path.getLength(i); // set 'l' to be between 0 and 1
 				break;
 			} else {
-				l -= lengths[i];
+				l -= path.getLength(i);
 			}
 		}
 		if (partIndex == -1) {
-			return path.get(path.size() - 1);
+			result[0] = path.getX(path.size() - 1);
+			result[1] = path.getY(path.size() - 1);
+			return;
 		}
-		Point2D p1 = path.get(partIndex);
-		Point2D p2 = path.get(partIndex + 1);
-		return tFunction(p1, p2, l);
+		result[0] = tFunction(path.getX(partIndex), path.getX(partIndex + 1), l);
+		result[1] = tFunction(path.getY(partIndex), path.getY(partIndex + 1), l);
 	}
 
 	/* Transforms CubicCurve2D while keeping it CubicCurve2D as there is no
@@ -160,51 +161,77 @@ public final class Curves {
 
 	// finds a point on curve that goes from start to end as t goes from 0.0 to 1.0.
 	public static Point2D getPointOnCurve(Shape curve, double t) {
-		Point2D[] bezierList;
+		double[] result = new double[2];
+		sampleCurve(curve, t, 0, 1, result, 0);
+		return new Point2D.Double(result[0], result[1]);
+	}
+
+	/* Samples 'amount' points of a curve at t = tFrom, tFrom + dt, ... and writes
+	 * their X and Y in a row to 'to' starting at 'offset'. Nothing is allocated,
+	 * so this is preferred over getPointOnCurve when many points are needed.
+	 */
+	public static void sampleCurve(Shape curve, double tFrom, double dt, int amount, double[] to, int offset) {
 		if (curve instanceof CubicCurve2D) {
-			CubicCurve2D cc = (CubicCurve2D) curve;
-			bezierList = new Point2D[]{cc.getP1(), cc.getCtrlP1(), cc.getCtrlP2(), cc.getP2()};
+			CubicCurve2D c = (CubicCurve2D) curve;
+			sampleCubic(c.getX1(), c.getY1(), c.getCtrlX1(), c.getCtrlY1(), c.getCtrlX2(), c.getCtrlY2(),
+					c.getX2(), c.getY2(), tFrom, dt, amount, to, offset);
 		} else if (curve instanceof QuadCurve2D) {
-			QuadCurve2D qc = (QuadCurve2D) curve;
-			bezierList = new Point2D[]{qc.getP1(), qc.getCtrlPt(), qc.getP2()};
+			QuadCurve2D c = (QuadCurve2D) curve;
+			sampleQuadratic(c.getX1(), c.getY1(), c.getCtrlX(), c.getCtrlY(), c.getX2(), c.getY2(),
+					tFrom, dt, amount, to, offset);
 		} else {
 			throw new IllegalArgumentException("unsupported curve class: " + curve.getClass());
 		}
-		return calculateBezierList(bezierList, t);
 	}
 
-	public static Path2D getPath(List<Point2D> path) {
-		Path2D result = new Path2D.Double();
-		result.moveTo(path.get(0).getX(), path.get(0).getY());
-		for (int i = 1; i < path.size(); i++)
-			result.lineTo(path.get(i).getX(), path.get(i).getY());
-		return result;
+	// the same as sampleCurve for a cubic Bezier curve given by its coordinates
+	public static void sampleCubic(double x0, double y0, double x1, double y1, double x2, double y2,
+								   double x3, double y3, double tFrom, double dt, int amount,
+								   double[] to, int offset) {
+		for (int i = 0; i < amount; i++) {
+			double t = tFrom + i * dt;
+			to[offset + i * 2] = cubic(x0, x1, x2, x3, t);
+			to[offset + i * 2 + 1] = cubic(y0, y1, y2, y3, t);
+		}
 	}
 
-	// finds a point on Bezier curve with t argument going from 1.0 to 1.0
-	public static Point2D calculateBezierList(Point2D[] list, double t) {
-		while (list.length != 1)
-			list = shortenBezierList(list, t);
-		return list[0];
+	// the same as sampleCurve for a quadratic Bezier curve given by its coordinates
+	public static void sampleQuadratic(double x0, double y0, double x1, double y1, double x2, double y2,
+									   double tFrom, double dt, int amount, double[] to, int offset) {
+		for (int i = 0; i < amount; i++) {
+			double t = tFrom + i * dt;
+			to[offset + i * 2] = quadratic(x0, x1, x2, t);
+			to[offset + i * 2 + 1] = quadratic(y0, y1, y2, t);
+		}
 	}
 
-	/* Converts a set of points to a smaller set where each point is
-	 * created from 2 old points. Base function for Bezier curves.
-	 */
-	public static Point2D[] shortenBezierList(Point2D[] list, double t) {
-		Point2D[] result = new Point2D[list.length - 1];
-		for (int i = 0; i < result.length; i++)
-			result[i] = tFunction(list[i], list[i + 1], t);
+	// closed form of a cubic Bezier curve for a single coordinate
+	public static double cubic(double c0, double c1, double c2, double c3, double t) {
+		double u = 1 - t;
+		return u * u * u * c0 + 3 * u * u * t * c1 + 3 * u * t * t * c2 + t * t * t * c3;
+	}
+
+	// closed form of a quadratic Bezier curve for a single coordinate
+	public static double quadratic(double c0, double c1, double c2, double t) {
+		double u = 1 - t;
+		return u * u * c0 + 2 * u * t * c1 + t * t * c2;
+	}
+
+	public static Path2D getPath(StrokePoints path) {
+		Path2D result = new Path2D.Double(Path2D.WIND_NON_ZERO, path.size());
+		result.moveTo(path.getX(0), path.getY(0));
+		for (int i = 1; i < path.size(); i++)
+			result.lineTo(path.getX(i), path.getY(i));
 		return result;
 	}
 
-	// finds a point that goes from p1 to p2 as t goes from 0.0 to 1.0
-	public static Point2D tFunction(Point2D p1, Point2D p2, double t) {
-		return new Point2D.Double(p1.getX() + t * (p2.getX() - p1.getX()), p1.getY() + t * (p2.getY() - p1.getY()));
+	// finds a coordinate that goes from c1 to c2 as t goes from 0.0 to 1.0
+	public static double tFunction(double c1, double c2, double t) {
+		return c1 + t * (c2 - c1);
 	}
 
-	// finds a point between 2 points
-	public static Point2D mid(Point2D p1, Point2D p2) {
-		return new Point2D.Double((p1.getX() + p2.getX()) / 2, (p1.getY() + p2.getY()) / 2);
+	// finds a coordinate between 2 coordinates
+	public static double mid(double c1, double c2) {
+		return (c1 + c2) / 2;
 	}
 }
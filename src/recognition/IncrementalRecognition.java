@@ -0,0 +1,126 @@
+package recognition;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/* Prepares a written answer while it's being written. Each finished
+ * stroke is smoothed, its angles are found and compared to strokes of
+ * the current candidates in the background, so that when the writing
+ * is submitted only positions of strokes are left to be compared.
+ * Angle differences are summed in the same order as compareToWritten
+ * does it, so the results are exactly the same.
+ *
+ * Methods have to be called from a single thread (the event dispatch
+ * thread), the work itself is done in RecognitionExecutor's pool.
+ */
+public class IncrementalRecognition {
+	private final int smoothness; // parts argument of Curves.smooth
+
+	// strokes passed to addStroke (compared by identity to find changes in the writing)
+	private final List<List<Point2D>> added = new ArrayList<>();
+	// the background work, each step is done after the previous one
+	private CompletableFuture<Void> pending = CompletableFuture.completedFuture(null);
+
+	// only accessed by the background work (or after it's finished)
+	private final List<StrokePoints> smoothed = new ArrayList<>();
+	private final List<WrittenStroke> strokes = new ArrayList<>();
+	// sums of angle differences to each candidate for the first 1, 2... strokes
+	private final List<double[]> angleSums = new ArrayList<>();
+	private CandidateIndex index;
+
+	public IncrementalRecognition(int smoothness) {
+		this.smoothness = smoothness;
+	}
+
+	// the stroke has to be finished (it's not copied again when the writing is submitted)
+	public void addStroke(List<Point2D> stroke) {
+		added.add(stroke);
+		List<Point2D> copy = new ArrayList<>(stroke);
+		CandidateIndex candidates = Writings.getCandidateIndex();
+		pending = pending.thenRunAsync(() -> process(copy, candidates), RecognitionExecutor.getExecutor());
+	}
+
+	public void removeLastStroke() {
+		added.remove(added.size() - 1);
+		pending = pending.thenRunAsync(this::removeProcessed, RecognitionExecutor.getExecutor());
+	}
+
+	public int getStrokesAmount() {
+		return added.size();
+	}
+
+	/* Returns the answer for the given writing, processing the strokes that
+	 * weren't passed to addStroke. Smoothed strokes are added to 'smoothedTo'.
+	 * After that, the instance is ready for the next writing.
+	 */
+	public WrittenAnswer finish(List<List<Point2D>> writing, List<StrokePoints> smoothedTo) {
+		int same = 0;
+		while (same < added.size() && same < writing.size() && added.get(same) == writing.get(same))
+			same++;
+		while (added.size() > same)
+			removeLastStroke();
+		for (int i = same; i < writing.size(); i++)
+			addStroke(writing.get(i));
+
+		WrittenAnswer answer;
+		try {
+			pending.join();
+			answer = WrittenAnswer.fromWrittenStrokes(strokes);
+			if (!strokes.isEmpty() && angleSums.size() == strokes.size())
+				answer.setAngleDifferenceSums(index, angleSums.get(angleSums.size() - 1));
+			smoothedTo.addAll(smoothed);
+		} catch (CompletionException e) { // process the writing without the results of the background work
+			e.printStackTrace();
+			List<StrokePoints> processed = new ArrayList<>(writing.size());
+			writing.forEach(stroke -> processed.add(Curves.smooth(stroke, smoothness)));
+			answer = WrittenAnswer.fromStrokes(processed);
+			smoothedTo.addAll(processed);
+		}
+
+		added.clear();
+		smoothed.clear();
+		strokes.clear();
+		angleSums.clear();
+		pending = CompletableFuture.completedFuture(null);
+		return answer;
+	}
+
+	private void process(List<Point2D> stroke, CandidateIndex candidates) {
+		StrokePoints points = Curves.smooth(stroke, smoothness);
+		smoothed.add(points);
+		strokes.add(new WrittenStroke(points));
+
+		if (candidates != index) { // candidates changed, compare all the strokes again
+			index = candidates;
+			angleSums.clear();
+			for (int i = 0; i < strokes.size() - 1; i++)
+				compareStroke(i);
+		}
+		compareStroke(strokes.size() - 1);
+	}
+
+	private void compareStroke(int strokeIndex) {
+		if (index == null)
+			return;
+		CandidateIndex.Candidate[] all = index.getAll();
+		double[] previous = strokeIndex == 0 ? new double[all.length] : angleSums.get(strokeIndex - 1);
+		double[] sums = new double[all.length];
+		WrittenStroke stroke = strokes.get(strokeIndex);
+		for (CandidateIndex.Candidate c : all) {
+			if (c.reference.getStrokesAmount() > strokeIndex)
+				sums[c.id] = previous[c.id] + c.reference.compareStroke(strokeIndex, stroke);
+		}
+		angleSums.add(sums);
+	}
+
+	private void removeProcessed() {
+		int last = strokes.size() - 1;
+		smoothed.remove(last);
+		strokes.remove(last);
+		if (angleSums.size() > last)
+			angleSums.remove(last);
+	}
+}
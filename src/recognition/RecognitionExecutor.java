@@ -0,0 +1,98 @@
+package recognition;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+/* Runs recognition off the event dispatch thread. Candidates are
+ * split between threads of a dedicated fork-join pool; a verdict
+ * only depends on whether there is a candidate more similar than
+ * the expected word, so it doesn't depend on the order in which
+ * threads compare candidates and is the same as in sequential
+ * Writings.isCorrect.
+ */
+final class RecognitionExecutor {
+	// candidates compared by a single task without splitting further
+	private static final int SEQUENTIAL_THRESHOLD = 32;
+	// one core is left for the event dispatch thread
+	private static final ForkJoinPool POOL = new ForkJoinPool(
+			Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+
+	/* Runs a job in the pool. The job is given a supplier that tells whether
+	 * the returned future was cancelled so that it can stop early.
+	 */
+	static <T> CompletableFuture<T> submit(Function<BooleanSupplier, T> job) {
+		CompletableFuture<T> result = new CompletableFuture<>();
+		POOL.execute(() -> {
+			try {
+				result.complete(job.apply(result::isCancelled));
+			} catch (Throwable e) { // errors too, otherwise the future would never be completed
+				result.completeExceptionally(e);
+			}
+		});
+		return result;
+	}
+
+	// checks whether any of candidates is strictly more similar to the answer than 'difference'
+	static boolean anyMoreSimilar(CandidateIndex index, CandidateIndex.Candidate[] candidates,
+								  WrittenAnswer answer, double difference, BooleanSupplier cancelled) {
+		return POOL.invoke(new FindMoreSimilar(index, candidates, 0, candidates.length,
+				answer, difference, new AtomicBoolean(), cancelled));
+	}
+
+	// used to keep background work of recognition in the same pool
+	static Executor getExecutor() {
+		return POOL;
+	}
+
+	private static class FindMoreSimilar extends RecursiveTask<Boolean> {
+		private static final long serialVersionUID = 1L;
+
+		private final CandidateIndex index;
+		private final CandidateIndex.Candidate[] candidates;
+		private final int from, to;
+		private final WrittenAnswer answer;
+		private final double difference;
+		private final AtomicBoolean found; // shared by all tasks to stop when any of them succeeds
+		private final BooleanSupplier cancelled;
+
+		FindMoreSimilar(CandidateIndex index, CandidateIndex.Candidate[] candidates, int from, int to,
+						WrittenAnswer answer, double difference, AtomicBoolean found, BooleanSupplier cancelled) {
+			this.index = index;
+			this.candidates = candidates;
+			this.from = from;
+			this.to = to;
+			this.answer = answer;
+			this.difference = difference;
+			this.found = found;
+			this.cancelled = cancelled;
+		}
+
+		@Override
+		protected Boolean compute() {
+			if (to - from > SEQUENTIAL_THRESHOLD) {
+				int middle = (from + to) >>> 1;
+				FindMoreSimilar second = new FindMoreSimilar(index, candidates, middle, to,
+						answer, difference, found, cancelled);
+				second.fork();
+				boolean firstFound = new FindMoreSimilar(index, candidates, from, middle,
+						answer, difference, found, cancelled).compute();
+				return second.join() || firstFound;
+			}
+
+			for (int i = from; i < to; i++) {
+				if (found.get() || cancelled.getAsBoolean())
+					return false;
+				if (Writings.isMoreSimilar(index.compare(candidates[i], answer, difference), difference)) {
+					found.set(true);
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+}
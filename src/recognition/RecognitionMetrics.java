@@ -0,0 +1,174 @@
+package recognition;
+
+import main.Instrumentation;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.LongAdder;
+
+/* Counts and latencies of recognition calls. Only recorded when enabled
+ * (with -Drecognition.metrics=true, through JMX if it's enabled for
+ * Instrumentation, or by the debug overlay of SceneLearningMeaningWriting),
+ * otherwise the cost is a volatile read.
+ * Allocated bytes are only counted if the JVM supports it, and for
+ * isCorrectAsync they don't include the threads candidates are split to.
+ */
+public final class RecognitionMetrics {
+	static final String OBJECT_NAME = "japanesewords:type=RecognitionMetrics";
+
+	private static volatile boolean enabled = Boolean.getBoolean("recognition.metrics");
+
+	private static final LatencyHistogram isCorrectLatency = new LatencyHistogram();
+	private static final LatencyHistogram compareLatency = new LatencyHistogram();
+	private static final LongAdder candidatesEvaluated = new LongAdder();
+	private static final LongAdder allocatedBytes = new LongAdder(); // by isCorrect calls
+
+	static {
+		Instrumentation.registerMBean(OBJECT_NAME, new Bean());
+	}
+
+	private RecognitionMetrics() {
+	}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	public static void setEnabled(boolean enabled) {
+		RecognitionMetrics.enabled = enabled;
+	}
+
+	public static LatencyHistogram getIsCorrectLatency() {
+		return isCorrectLatency;
+	}
+
+	public static LatencyHistogram getCompareLatency() {
+		return compareLatency;
+	}
+
+	public static long getCandidatesEvaluated() {
+		return candidatesEvaluated.sum();
+	}
+
+	// returns -1 if allocated bytes can't be measured
+	public static long getAllocatedBytesPerIsCorrect() {
+		long calls = isCorrectLatency.getCount();
+		if (Allocation.BEAN == null)
+			return -1;
+		return calls == 0 ? 0 : allocatedBytes.sum() / calls;
+	}
+
+	public static void reset() {
+		isCorrectLatency.reset();
+		compareLatency.reset();
+		candidatesEvaluated.reset();
+		allocatedBytes.reset();
+	}
+
+	static void candidateEvaluated() {
+		if (enabled)
+			candidatesEvaluated.increment();
+	}
+
+	// bytes allocated by the current thread so far, or 0 if it can't be measured
+	static long allocatedBytes() {
+		return Allocation.BEAN == null ? 0 : Allocation.BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	static void isCorrectFinished(long startNanos, long startAllocatedBytes) {
+		isCorrectLatency.record(System.nanoTime() - startNanos);
+		allocatedBytes.add(allocatedBytes() - startAllocatedBytes);
+	}
+
+	static void compareFinished(long startNanos) {
+		compareLatency.record(System.nanoTime() - startNanos);
+	}
+
+	// loaded when metrics are first recorded, as the management classes take time to load
+	private static class Allocation {
+		static final com.sun.management.ThreadMXBean BEAN = find();
+
+		private static com.sun.management.ThreadMXBean find() {
+			try {
+				ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+				if (bean instanceof com.sun.management.ThreadMXBean) {
+					com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+					if (sunBean.isThreadAllocatedMemorySupported()) {
+						sunBean.setThreadAllocatedMemoryEnabled(true);
+						return sunBean;
+					}
+				}
+			} catch (LinkageError | UnsupportedOperationException e) { // not a HotSpot JVM
+				return null;
+			}
+			return null;
+		}
+	}
+
+	private static class Bean implements RecognitionMetricsMXBean {
+		@Override
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		@Override
+		public void setEnabled(boolean enabled) {
+			RecognitionMetrics.setEnabled(enabled);
+		}
+
+		@Override
+		public long getIsCorrectCalls() {
+			return isCorrectLatency.getCount();
+		}
+
+		@Override
+		public double getIsCorrectP50Millis() {
+			return isCorrectLatency.getPercentile(50) / 1e6;
+		}
+
+		@Override
+		public double getIsCorrectP99Millis() {
+			return isCorrectLatency.getPercentile(99) / 1e6;
+		}
+
+		@Override
+		public double getIsCorrectMaxMillis() {
+			return isCorrectLatency.getMax() / 1e6;
+		}
+
+		@Override
+		public long getCompareCalls() {
+			return compareLatency.getCount();
+		}
+
+		@Override
+		public double getCompareP50Micros() {
+			return compareLatency.getPercentile(50) / 1e3;
+		}
+
+		@Override
+		public double getCompareP99Micros() {
+			return compareLatency.getPercentile(99) / 1e3;
+		}
+
+		@Override
+		public double getCompareMaxMicros() {
+			return compareLatency.getMax() / 1e3;
+		}
+
+		@Override
+		public long getCandidatesEvaluated() {
+			return RecognitionMetrics.getCandidatesEvaluated();
+		}
+
+		@Override
+		public long getAllocatedBytesPerIsCorrect() {
+			return RecognitionMetrics.getAllocatedBytesPerIsCorrect();
+		}
+
+		@Override
+		public void reset() {
+			RecognitionMetrics.reset();
+		}
+	}
+}
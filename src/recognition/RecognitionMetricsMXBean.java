@@ -0,0 +1,33 @@
+package recognition;
+
+// JMX view of RecognitionMetrics
+public interface RecognitionMetricsMXBean {
+	boolean isEnabled();
+
+	void setEnabled(boolean enabled);
+
+	// isCorrect and isCorrectAsync calls
+	long getIsCorrectCalls();
+
+	double getIsCorrectP50Millis();
+
+	double getIsCorrectP99Millis();
+
+	double getIsCorrectMaxMillis();
+
+	// WrittenAnswer.compareToWritten calls
+	long getCompareCalls();
+
+	double getCompareP50Micros();
+
+	double getCompareP99Micros();
+
+	double getCompareMaxMicros();
+
+	long getCandidatesEvaluated();
+
+	// -1 if the JVM can't measure it
+	long getAllocatedBytesPerIsCorrect();
+
+	void reset();
+}
@@ -0,0 +1,142 @@
+package recognition;
+
+import main.Assets;
+import main.Instrumentation;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.util.List;
+
+/* Features of the loaded writings used in recognition (angles, start
+ * and end points of strokes), found once for every character and saved
+ * next to the writings file. Words are composed of them by moving start
+ * and end points of each character to its place in the word, so the
+ * curves of characters don't need to be decoded for recognition.
+ *
+ * The file has a header like WritingsIndex (magic, version, size and
+ * CRC32 of the writings file, number of characters), then the number of
+ * the first stroke of each character (4 bytes each, in the order of
+ * WritingsIndex, and one more for the end of the last character) and the
+ * strokes themselves: 8 angles, start X and Y, end X and Y (4 bytes float
+ * each, like curves in the writings file). Angles are found on the strokes
+ * of a character at its own position, so they can differ in the last bits
+ * from angles of the same strokes moved to a word.
+ * VERSION has to be changed whenever the way features are found changes.
+ */
+final class ReferenceFeatures {
+	static final String FILE_NAME = "writings.features";
+	private static final int MAGIC = 0x4a574654; // "JWFT"
+	private static final int VERSION = 2;
+	private static final int HEADER_SIZE = 28;
+	private static final int STROKE_SIZE = (WrittenStroke.ANGLES_ARRAY_LENGTH + 4) * 4;
+
+	private final ByteBuffer buffer; // the whole file, only read with absolute positions
+	private final int strokesPosition;
+
+	private ReferenceFeatures(ByteBuffer buffer, int characters) {
+		this.buffer = buffer;
+		strokesPosition = HEADER_SIZE + (characters + 1) * 4;
+	}
+
+	// loads features of the writings in the index, finding and saving them again if they're missing or stale
+	static ReferenceFeatures load(ByteBuffer writings, WritingsIndex index) {
+		ReferenceFeatures features = read(writings.limit(), index);
+		if (features != null)
+			return features;
+
+		ByteBuffer built = Instrumentation.time("ReferenceFeatures.build", () -> build(writings, index));
+		try {
+			Assets.replaceFile(FILE_NAME, built.array());
+		} catch (IOException e) {
+			// the features can still be used from memory, they will be found again on next start
+			System.err.println("Unable to save " + FILE_NAME + ": " + e.getMessage());
+		}
+		return new ReferenceFeatures(built, index.size());
+	}
+
+	/* Adds strokes of a character (its index in WritingsIndex) to the list,
+	 * moved to the given position of the character in a word.
+	 */
+	void addStrokes(int character, int charPos, List<WrittenStroke> toList) {
+		double dx = charPos * CharacterWriting.CHARACTER_BOX_SIZE;
+		int first = buffer.getInt(HEADER_SIZE + character * 4);
+		int end = buffer.getInt(HEADER_SIZE + character * 4 + 4);
+		for (int s = first; s < end; s++) {
+			int position = strokesPosition + s * STROKE_SIZE;
+			double[] angles = new double[WrittenStroke.ANGLES_ARRAY_LENGTH];
+			for (int i = 0; i < angles.length; i++, position += 4)
+				angles[i] = buffer.getFloat(position);
+			toList.add(new WrittenStroke(angles,
+					buffer.getFloat(position) + dx, buffer.getFloat(position + 4),
+					buffer.getFloat(position + 8) + dx, buffer.getFloat(position + 12)));
+		}
+	}
+
+	/* The header is read before the file is mapped, so that a stale file
+	 * isn't mapped and can be replaced.
+	 */
+	private static ReferenceFeatures read(int writingsSize, WritingsIndex index) {
+		int characters = index.size();
+		int strokesPosition = HEADER_SIZE + (characters + 1) * 4;
+		MappedByteBuffer buffer;
+		try {
+			ByteBuffer header = Assets.readPart(FILE_NAME, 0, strokesPosition);
+			if (header.limit() < strokesPosition || header.getInt() != MAGIC || header.getInt() != VERSION)
+				return null;
+			if (header.getLong() != writingsSize || header.getLong() != index.getWritingsChecksum())
+				return null;
+			if (header.getInt() != characters)
+				return null;
+			long strokes = header.getInt(strokesPosition - 4);
+			if (Assets.getFile(FILE_NAME).length() != strokesPosition + strokes * STROKE_SIZE)
+				return null;
+			buffer = Assets.mapFile(FILE_NAME);
+		} catch (FileNotFoundException e) {
+			return null;
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		}
+		return new ReferenceFeatures(buffer, characters);
+	}
+
+	// decodes every writing (without keeping them) to find features of its strokes
+	private static ByteBuffer build(ByteBuffer writings, WritingsIndex index) {
+		int characters = index.size();
+		int[] firstStrokes = new int[characters + 1];
+		ByteArrayOutputStream strokesBytes = new ByteArrayOutputStream();
+		DataOutputStream strokes = new DataOutputStream(strokesBytes);
+		int strokesAmt = 0;
+		try {
+			for (int i = 0; i < characters; i++) {
+				firstStrokes[i] = strokesAmt;
+				CharacterWriting writing = new CharacterWriting(writings.duplicate().position(index.getOffset(i)));
+				for (Stroke stroke : writing.getStrokes()) {
+					WrittenStroke ws = stroke.toWrittenStroke();
+					for (int a = 0; a < WrittenStroke.ANGLES_ARRAY_LENGTH; a++)
+						strokes.writeFloat((float) ws.getAngle(a));
+					strokes.writeFloat((float) ws.getStartX());
+					strokes.writeFloat((float) ws.getStartY());
+					strokes.writeFloat((float) ws.getEndX());
+					strokes.writeFloat((float) ws.getEndY());
+					strokesAmt++;
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e); // not thrown by ByteArrayOutputStream
+		}
+		firstStrokes[characters] = strokesAmt;
+
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + firstStrokes.length * 4 + strokesBytes.size());
+		buffer.putInt(MAGIC);
+		buffer.putInt(VERSION);
+		buffer.putLong(writings.limit());
+		buffer.putLong(index.getWritingsChecksum());
+		buffer.putInt(characters);
+		for (int first : firstStrokes)
+			buffer.putInt(first);
+		buffer.put(strokesBytes.toByteArray());
+		return buffer.clear();
+	}
+}
@@ -12,10 +12,7 @@ public class Stroke {
 	private static final int CURVE_PIECES = 4;
 	private static final double DT = 1d / CURVE_PIECES;
 
-	private List<Point2D> points;
-	private double[] lengths;
-	private double totalLength;
-	private int pointsAmt;
+	private StrokePoints points;
 
 	private List<Shape> segments;
 	private Path2D path;
@@ -29,8 +26,6 @@ public class Stroke {
 			readCurve(buffer, this);
 
 		findPoints();
-		path = new Path2D.Float();
-		segments.forEach(s -> path.append(s, true));
 	}
 
 	/* Creates a Stroke from an already existing one with shifting it to
@@ -42,46 +37,38 @@ public class Stroke {
 
 		segments = Curves.copyCurves(original.segments, translate);
 
-		pointsAmt = original.pointsAmt;
-		points = new ArrayList<>(pointsAmt);
-		original.points.forEach(pt -> points.add(translate.transform(pt, null)));
-		lengths = original.lengths;
-		totalLength = original.totalLength;
-
-		path = new Path2D.Float();
-		segments.forEach(s -> path.append(s, true));
+		points = original.points.translated(translate.getTranslateX(), translate.getTranslateY());
 	}
 
 	private void findPoints() {
-		pointsAmt = 1 + CURVE_PIECES * segments.size();
-
-		points = new ArrayList<>(pointsAmt);
+		points = new StrokePoints(1 + CURVE_PIECES * segments.size());
 		// all the segments except the first have their t=0 covered with the end of previous one
-		points.add(Curves.getPointOnCurve(segments.get(0), 0));
-		lengths = new double[pointsAmt]; // distance to the previous point (lengths[0] is always 0)
-		for (int i = 0; i < segments.size(); i++) {
-			for (int j = 1; j <= CURVE_PIECES; j++) {
-				Point2D pCurrent = Curves.getPointOnCurve(segments.get(i), j * DT);
-				Point2D pPrev = points.get(points.size() - 1);
-				points.add(pCurrent);
-
-				double dist = pCurrent.distance(pPrev);
-				lengths[i * CURVE_PIECES + j] = dist;
-				totalLength += dist;
-			}
+		double[] samples = new double[CURVE_PIECES * 2];
+		Curves.sampleCurve(segments.get(0), 0, 0, 1, samples, 0);
+		points.add(samples, 0, 1);
+		for (Shape segment : segments) {
+			Curves.sampleCurve(segment, DT, DT, CURVE_PIECES, samples, 0);
+			points.add(samples, 0, CURVE_PIECES);
 		}
 	}
 
+	// the path is only made when the stroke is drawn
 	Path2D getPath() {
+		if (path == null) {
+			path = new Path2D.Float();
+			segments.forEach(s -> path.append(s, true));
+		}
 		return path;
 	}
 
 	public Point2D getPoint(double t) {
-		return Curves.findPointOnPath(points, lengths, totalLength, t);
+		double[] result = new double[2];
+		Curves.findPointOnPath(points, t, result);
+		return new Point2D.Double(result[0], result[1]);
 	}
 
 	WrittenStroke toWrittenStroke() {
-		return new WrittenStroke(points, lengths, totalLength);
+		return new WrittenStroke(points);
 	}
 
 	private static void readCurve(ByteBuffer buffer, Stroke stroke) {
@@ -0,0 +1,119 @@
+package recognition;
+
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+import java.util.List;
+
+/* A stroke stored as a packed array of coordinates (x and y of each
+ * point in a row) together with distances between its points. Used
+ * instead of lists of Point2D objects so that going along strokes
+ * in recognition and in animations doesn't allocate per point.
+ */
+public final class StrokePoints {
+	private double[] coords;
+	private double[] lengths; // distance to the previous point (lengths[0] is always 0)
+	private double totalLength;
+	private int size;
+
+	public StrokePoints(int capacity) {
+		coords = new double[Math.max(capacity, 1) * 2];
+		lengths = new double[Math.max(capacity, 1)];
+	}
+
+	public StrokePoints(List<Point2D> points) {
+		this(points.size());
+		for (Point2D p : points)
+			add(p.getX(), p.getY());
+	}
+
+	private StrokePoints(double[] coords, double[] lengths, double totalLength, int size) {
+		this.coords = coords;
+		this.lengths = lengths;
+		this.totalLength = totalLength;
+		this.size = size;
+	}
+
+	public void add(double x, double y) {
+		if (size == lengths.length) {
+			coords = Arrays.copyOf(coords, size * 4);
+			lengths = Arrays.copyOf(lengths, size * 2);
+		}
+		coords[size * 2] = x;
+		coords[size * 2 + 1] = y;
+		if (size != 0) {
+			double dx = coords[size * 2 - 2] - x;
+			double dy = coords[size * 2 - 1] - y;
+			lengths[size] = Math.sqrt(dx * dx + dy * dy);
+			totalLength += lengths[size];
+		}
+		size++;
+	}
+
+	// adds 'amount' points from an array of X and Y in a row starting at 'offset'
+	public void add(double[] from, int offset, int amount) {
+		for (int i = 0; i < amount; i++)
+			add(from[offset + i * 2], from[offset + i * 2 + 1]);
+	}
+
+	public void clear() {
+		size = 0;
+		totalLength = 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public double getX(int i) {
+		return coords[i * 2];
+	}
+
+	public double getY(int i) {
+		return coords[i * 2 + 1];
+	}
+
+	public double getLength(int i) {
+		return lengths[i];
+	}
+
+	public double getTotalLength() {
+		return totalLength;
+	}
+
+	// creates a copy shifted by dx and dy, distances between points stay the same
+	StrokePoints translated(double dx, double dy) {
+		double[] result = new double[size * 2];
+		for (int i = 0; i < size; i++) {
+			result[i * 2] = coords[i * 2] + dx;
+			result[i * 2 + 1] = coords[i * 2 + 1] + dy;
+		}
+		return new StrokePoints(result, lengths, totalLength, size);
+	}
+
+	StrokePoints transformed(AffineTransform at) {
+		StrokePoints result = new StrokePoints(size);
+		at.transform(coords, 0, result.coords, 0, size);
+		result.size = size;
+		for (int i = 1; i < size; i++) {
+			double dx = result.coords[i * 2 - 2] - result.coords[i * 2];
+			double dy = result.coords[i * 2 - 1] - result.coords[i * 2 + 1];
+			result.lengths[i] = Math.sqrt(dx * dx + dy * dy);
+			result.totalLength += result.lengths[i];
+		}
+		return result;
+	}
+
+	Rectangle2D getBounds() {
+		double minX = coords[0], minY = coords[1], maxX = minX, maxY = minY;
+		for (int i = 1; i < size; i++) {
+			double x = coords[i * 2], y = coords[i * 2 + 1];
+			if (x < minX) minX = x;
+			if (x > maxX) maxX = x;
+			if (y < minY) minY = y;
+			if (y > maxY) maxY = y;
+		}
+		return new Rectangle2D.Double(minX, minY, maxX - minX, maxY - minY);
+	}
+}
@@ -1,6 +1,5 @@
 package recognition;
 
-import java.awt.geom.Point2D;
 import java.util.List;
 
 /* Helps determining difference between characters. In kanji
@@ -8,26 +7,29 @@ import java.util.List;
  * because angles are nearly the same.
  */
 public class StrokesConnection {
-	private Point2D offsetBetweenStartPoints;
-	private Point2D offsetBetweenEndpoints;
+	private double startsOffsetX, startsOffsetY;
+	private double endsOffsetX, endsOffsetY;
 
 	public StrokesConnection(WrittenStroke s1, WrittenStroke s2) {
-		Point2D start1 = s1.getStart();
-		Point2D start2 = s2.getStart();
-		Point2D end1 = s1.getEnd();
-		Point2D end2 = s2.getEnd();
-
-		offsetBetweenStartPoints = new Point2D.Double(start2.getX() - start1.getX(), start2.getY() - start1.getY());
-		offsetBetweenEndpoints = new Point2D.Double(end2.getX() - end1.getX(), end2.getY() - end1.getY());
+		startsOffsetX = s2.getStartX() - s1.getStartX();
+		startsOffsetY = s2.getStartY() - s1.getStartY();
+		endsOffsetX = s2.getEndX() - s1.getEndX();
+		endsOffsetY = s2.getEndY() - s1.getEndY();
 	}
 
 	// returns a value from 0 (similar) to 1 (most dissimilar)
 	public double compare(StrokesConnection to) {
-		double diffStarts = offsetBetweenStartPoints.distance(to.offsetBetweenStartPoints);
-		double diffEnds = offsetBetweenEndpoints.distance(to.offsetBetweenEndpoints);
+		double diffStarts = distance(startsOffsetX, startsOffsetY, to.startsOffsetX, to.startsOffsetY);
+		double diffEnds = distance(endsOffsetX, endsOffsetY, to.endsOffsetX, to.endsOffsetY);
 		return (diffStarts + diffEnds) / CharacterWriting.CHARACTER_BOX_SIZE / 2d;
 	}
 
+	private static double distance(double x1, double y1, double x2, double y2) {
+		x1 -= x2;
+		y1 -= y2;
+		return Math.sqrt(x1 * x1 + y1 * y1);
+	}
+
 	// finds difference for 2 lists with the same size
 	public static double compare(List<StrokesConnection> cs1, List<StrokesConnection> cs2) {
 		double sum = 0;
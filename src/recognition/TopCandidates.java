@@ -0,0 +1,97 @@
+package recognition;
+
+/* Keeps the K most similar of streamed candidates without storing or
+ * sorting all of them. Candidates are kept in a heap of primitive arrays
+ * with the least similar kept one at the top, so a new candidate only
+ * needs to be compared to it. Equal differences are resolved in favour
+ * of the smaller index.
+ */
+final class TopCandidates {
+	private final int[] indices;
+	private final double[] differences;
+	private int size;
+
+	TopCandidates(int k) {
+		if (k < 1)
+			throw new IllegalArgumentException("k=" + k);
+		indices = new int[k];
+		differences = new double[k];
+	}
+
+	/* Candidates with a difference no less than this can't be added if they're
+	 * offered in order of indices, so it can be passed to compareToWritten as a bound.
+	 */
+	double getBound() {
+		return size < indices.length ? Double.POSITIVE_INFINITY : differences[0];
+	}
+
+	void offer(int index, double difference) {
+		if (size < indices.length) {
+			indices[size] = index;
+			differences[size] = difference;
+			siftUp(size++);
+		} else if (isWorse(indices[0], differences[0], index, difference)) {
+			indices[0] = index;
+			differences[0] = difference;
+			siftDown(0);
+		}
+	}
+
+	int size() {
+		return size;
+	}
+
+	/* Removes all the kept candidates writing them from the most similar to
+	 * the least similar. Arrays have to have at least size() elements.
+	 */
+	void drainSorted(int[] toIndices, double[] toDifferences) {
+		while (size > 0) {
+			size--;
+			toIndices[size] = indices[0];
+			toDifferences[size] = differences[0];
+			indices[0] = indices[size];
+			differences[0] = differences[size];
+			siftDown(0);
+		}
+	}
+
+	private void siftUp(int i) {
+		while (i > 0) {
+			int parent = (i - 1) / 2;
+			if (!isWorse(indices[i], differences[i], indices[parent], differences[parent]))
+				return;
+			swap(i, parent);
+			i = parent;
+		}
+	}
+
+	private void siftDown(int i) {
+		while (true) {
+			int worst = i;
+			int left = i * 2 + 1, right = left + 1;
+			if (left < size && isWorse(indices[left], differences[left], indices[worst], differences[worst]))
+				worst = left;
+			if (right < size && isWorse(indices[right], differences[right], indices[worst], differences[worst]))
+				worst = right;
+			if (worst == i)
+				return;
+			swap(i, worst);
+			i = worst;
+		}
+	}
+
+	// whether the first candidate is less similar than the second one (NaN differences are the least similar)
+	private static boolean isWorse(int index1, double difference1, int index2, double difference2) {
+		int c = Double.compare(difference1, difference2);
+		return c > 0 || c == 0 && index1 > index2;
+	}
+
+	private void swap(int i, int j) {
+		int index = indices[i];
+		indices[i] = indices[j];
+		indices[j] = index;
+		double difference = differences[i];
+		differences[i] = differences[j];
+		differences[j] = difference;
+	}
+}
@@ -18,17 +18,14 @@ public class WordWriting {
 			CharacterWriting ch = Writings.get(word.charAt(i));
 			ch.addStrokesTranslated(i, strokes);
 		}
-
-		path = new Path2D.Double();
-		strokes.forEach(stroke -> path.append(stroke.getPath(), false));
-
 	}
 
+	// the path is only made when the word is drawn
 	public Path2D getPath() {
+		if (path == null) {
+			path = new Path2D.Double();
+			strokes.forEach(stroke -> path.append(stroke.getPath(), false));
+		}
 		return path;
 	}
-
-	List<Stroke> getStrokes() {
-		return strokes;
-	}
 }
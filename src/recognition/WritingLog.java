@@ -0,0 +1,229 @@
+package recognition;
+
+import java.awt.geom.Point2D;
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/* Append-only binary log of submitted writings, used to collect real
+ * writings for testing recognition (see main.BatchRecognition). It's
+ * only written if the JVM is started with -Dwritings.record=<file>.
+ *
+ * The file starts with 4 bytes magic and 4 bytes version, then records
+ * follow. Each record is 4 bytes length of the rest of the record and
+ * 1 byte type. A writing is recorded when it's submitted: 8 bytes time
+ * of the first point (milliseconds since the epoch), the expected word
+ * (as in DataOutput.writeUTF), 4 bytes number of strokes and the strokes.
+ * Each stroke is 4 bytes number of points and the points, each point is
+ * 8 bytes double X, 8 bytes double Y (pixels in the writing area) and
+ * 4 bytes milliseconds since the time of the record. A verdict is 1 byte
+ * (1 if the writing was accepted) and belongs to the last writing before
+ * it; writings whose recognition was cancelled have no verdict. A record
+ * that was cut off (i.e. the app was killed while writing it) is ignored.
+ */
+public final class WritingLog {
+	private static final String PROPERTY = "writings.record";
+	private static final int MAGIC = 0x4a57524c; // "JWRL"
+	private static final int VERSION = 2;
+	private static final byte RECORD_WRITING = 0;
+	private static final byte RECORD_VERDICT = 1;
+
+	private static Writer recorder;
+	private static boolean recorderOpened;
+
+	private WritingLog() {
+	}
+
+	// returns the writer set with -Dwritings.record or null if writings aren't recorded
+	public static synchronized Writer getRecorder() {
+		if (!recorderOpened) {
+			recorderOpened = true;
+			String fileName = System.getProperty(PROPERTY);
+			if (fileName != null) {
+				try {
+					recorder = new Writer(new File(fileName));
+					Writer opened = recorder;
+					Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+						try {
+							opened.close();
+						} catch (IOException e) {
+							e.printStackTrace();
+						}
+					}, "Writings log closing"));
+				} catch (IOException e) {
+					System.err.println("Unable to record writings to " + fileName + ": " + e.getMessage());
+				}
+			}
+		}
+		return recorder;
+	}
+
+	// checks whether the stream starts as a log, reading the first 8 bytes
+	public static boolean isLog(InputStream in) throws IOException {
+		DataInputStream data = new DataInputStream(in);
+		try {
+			return data.readInt() == MAGIC && data.readInt() == VERSION;
+		} catch (EOFException e) {
+			return false;
+		}
+	}
+
+	// reads all the records of a log, the stream has to be positioned after the header (see isLog)
+	public static List<Entry> read(InputStream in) throws IOException {
+		// read as a whole, so that lengths and counts can be checked against the bytes that are left
+		DataInputStream data = new DataInputStream(new ByteArrayInputStream(in.readAllBytes()));
+		List<Entry> entries = new ArrayList<>();
+		while (data.available() >= 4) {
+			int length = data.readInt();
+			if (length < 1)
+				throw new IOException("corrupted record of length " + length + " after " + entries.size() + " writings");
+			if (length > data.available())
+				break; // cut off
+			byte[] record = new byte[length];
+			data.readFully(record);
+
+			DataInputStream recordData = new DataInputStream(new ByteArrayInputStream(record));
+			byte type = recordData.readByte();
+			if (type == RECORD_WRITING) {
+				entries.add(Entry.read(recordData));
+			} else if (type == RECORD_VERDICT) {
+				if (!entries.isEmpty())
+					entries.get(entries.size() - 1).verdict = recordData.readBoolean();
+			} else {
+				throw new IOException("unknown record type " + type + " after " + entries.size() + " writings");
+			}
+		}
+		return entries;
+	}
+
+	// reads a number of items taking at least 'itemSize' bytes each, checking it against the rest of the record
+	private static int readCount(DataInputStream in, int itemSize) throws IOException {
+		int count = in.readInt();
+		if (count < 0 || (long) count * itemSize > in.available())
+			throw new IOException("corrupted record, " + count + " items don't fit in " + in.available() + " bytes");
+		return count;
+	}
+
+	public static final class Entry {
+		private final long time;
+		private final String word;
+		private Boolean verdict;
+		private final List<List<Point2D>> writing;
+		private final List<int[]> times; // milliseconds since 'time' of each point
+
+		private Entry(long time, String word, List<List<Point2D>> writing, List<int[]> times) {
+			this.time = time;
+			this.word = word;
+			this.writing = writing;
+			this.times = times;
+		}
+
+		public long getTime() {
+			return time;
+		}
+
+		public String getWord() {
+			return word;
+		}
+
+		// whether the writing was accepted, null if recognition was cancelled (or the app was closed)
+		public Boolean getVerdict() {
+			return verdict;
+		}
+
+		public List<List<Point2D>> getWriting() {
+			return writing;
+		}
+
+		public List<int[]> getTimes() {
+			return times;
+		}
+
+		private static Entry read(DataInputStream in) throws IOException {
+			long time = in.readLong();
+			String word = in.readUTF();
+			int strokes = readCount(in, 4);
+			List<List<Point2D>> writing = new ArrayList<>(strokes);
+			List<int[]> times = new ArrayList<>(strokes);
+			for (int i = 0; i < strokes; i++) {
+				int points = readCount(in, 20);
+				List<Point2D> stroke = new ArrayList<>(points);
+				int[] strokeTimes = new int[points];
+				for (int j = 0; j < points; j++) {
+					stroke.add(new Point2D.Double(in.readDouble(), in.readDouble()));
+					strokeTimes[j] = in.readInt();
+				}
+				writing.add(stroke);
+				times.add(strokeTimes);
+			}
+			return new Entry(time, word, writing, times);
+		}
+	}
+
+	public static final class Writer implements Closeable {
+		private final DataOutputStream out;
+		// a record is prepared here to write its length first
+		private final ByteArrayOutputStream record = new ByteArrayOutputStream();
+		private final DataOutputStream recordData = new DataOutputStream(record);
+
+		public Writer(File file) throws IOException {
+			if (file.length() != 0) { // records are only appended to a log of the same version
+				try (InputStream in = new FileInputStream(file)) {
+					if (!isLog(in))
+						throw new IOException(file + " is not a writings log of version " + VERSION);
+				}
+			}
+			boolean empty = file.length() == 0;
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+			if (empty) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.flush();
+			}
+		}
+
+		/* Appends a submitted writing to the log. 'times' are times of the points
+		 * in milliseconds since the epoch, arrays can be longer than the strokes.
+		 */
+		public synchronized void appendWriting(String word, List<List<Point2D>> writing,
+											   List<long[]> times) throws IOException {
+			long start = writing.isEmpty() ? System.currentTimeMillis() : times.get(0)[0];
+			record.reset();
+			recordData.writeByte(RECORD_WRITING);
+			recordData.writeLong(start);
+			recordData.writeUTF(word);
+			recordData.writeInt(writing.size());
+			for (int i = 0; i < writing.size(); i++) {
+				List<Point2D> stroke = writing.get(i);
+				long[] strokeTimes = times.get(i);
+				recordData.writeInt(stroke.size());
+				for (int j = 0; j < stroke.size(); j++) {
+					Point2D p = stroke.get(j);
+					recordData.writeDouble(p.getX());
+					recordData.writeDouble(p.getY());
+					recordData.writeInt((int) (strokeTimes[j] - start));
+				}
+			}
+			writeRecord();
+		}
+
+		// appends the verdict of the last appended writing
+		public synchronized void appendVerdict(boolean correct) throws IOException {
+			record.reset();
+			recordData.writeByte(RECORD_VERDICT);
+			recordData.writeBoolean(correct);
+			writeRecord();
+		}
+
+		private void writeRecord() throws IOException {
+			out.writeInt(record.size());
+			record.writeTo(out);
+			out.flush();
+		}
+
+		@Override
+		public synchronized void close() throws IOException {
+			out.close();
+		}
+	}
+}
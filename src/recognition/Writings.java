@@ -1,41 +1,54 @@
 package recognition;
 
-import cards.Card;
-import cards.Cards;
 import main.Assets;
+import main.Instrumentation;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashMap;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
 
 // utility class for writings
 public final class Writings {
 	// if an answer has inaccuracy value above this, it is considered wrong
 	public static final double CORRECT_ANSWER_THRESHOLD = 0.3;
 
-	// map of Unicode code points and associated writings
-	private static HashMap<Integer, CharacterWriting> characterWritings;
+	// the writings file mapped into memory (see 'assets/writings format.md')
+	private static MappedByteBuffer writingsBuffer;
+	// sorted Unicode code points and positions of their writings in writingsBuffer
+	private static WritingsIndex writingsIndex;
+	// writings that were already decoded (indices are the same as in writingsIndex)
+	private static CharacterWriting[] characterWritings;
+	// angles and ends of strokes of every character, used to make comparisonInfo
+	private static ReferenceFeatures referenceFeatures;
 
-	// those 2 maps have the same size and key set
-	private static HashMap<String, WordWriting> wordWritings;
-	private static HashMap<String, WrittenAnswer> comparisonInfo;
+	// writings of registered words, made when they're requested
+	private static Map<String, WordWriting> wordWritings;
+	// features of registered words used in recognition, words are registered from several threads
+	private static Map<String, WrittenAnswer> comparisonInfo;
+	// words of the current cards that answers are compared to, can still be being made
+	private static volatile CompletableFuture<CandidateIndex> candidateIndex;
 
 	public static void init() {
-		loadWritings();
-		wordWritings = new HashMap<>();
-		comparisonInfo = new HashMap<>();
+		Instrumentation.time("Writings.init", () -> {
+			loadWritings();
+			wordWritings = new ConcurrentHashMap<>();
+			comparisonInfo = new ConcurrentHashMap<>();
+		});
 	}
 
 	private static void loadWritings() {
-		ByteBuffer buffer;
-
-		// load writings file
+		// map writings file
 		try {
-			buffer = ByteBuffer.wrap(Assets.loadBytes("writings"));
+			writingsBuffer = Assets.mapFile("writings");
 		} catch (FileNotFoundException e) {
 			System.err.println("Writings file doesn't exist");
 			System.exit(1);
@@ -45,32 +58,51 @@ public final class Writings {
 			return;
 		}
 
-		// read writings
-		characterWritings = new HashMap<>();
-		while (buffer.hasRemaining()) {
-			int symbol = buffer.getInt();
-			buffer.position(buffer.position() + 4); // skip length info
+		// writings themselves are only decoded when they're requested
+		writingsIndex = WritingsIndex.load(writingsBuffer, Assets.getFile("writings").lastModified());
+		characterWritings = new CharacterWriting[writingsIndex.size()];
+		referenceFeatures = ReferenceFeatures.load(writingsBuffer, writingsIndex);
+	}
 
-			CharacterWriting writing = new CharacterWriting(buffer);
-			characterWritings.put(symbol, writing);
-		}
+	// decodes a writing from the mapped file, the shared buffer position is left untouched
+	private static CharacterWriting decodeWriting(int offset) {
+		ByteBuffer buffer = writingsBuffer.duplicate();
+		buffer.position(offset);
+		Instrumentation.count("kanji.decoded");
+		return new CharacterWriting(buffer);
+	}
+
+	/* The size and CRC32 of the writings file, so that files that depend
+	 * on which words are supported (like compiled decks) can be checked.
+	 */
+	public static long getWritingsSize() {
+		return writingsBuffer.limit();
 	}
 
-	// checks if all of the word's characters are in the writings map
+	public static long getWritingsChecksum() {
+		return writingsIndex.getWritingsChecksum();
+	}
+
+	// checks if all of the word's characters are in the writings file
 	public static boolean isSupported(String word) {
 		for (int codePoint : word.codePoints().toArray())
-			if (!characterWritings.containsKey(codePoint))
+			if (writingsIndex.find(codePoint) < 0)
 				return false;
 		return true;
 	}
 
 	public static CharacterWriting get(int character) {
-		return characterWritings.get(character);
+		int i = writingsIndex.find(character);
+		if (i < 0)
+			return null;
+		if (characterWritings[i] == null)
+			characterWritings[i] = decodeWriting(writingsIndex.getOffset(i));
+		return characterWritings[i];
 	}
 
 	/* In order to be correct an answer needs to:
 	 * have the same number of strokes
-	 * be more similar to answer than any word in Cards.currentList
+	 * be more similar to answer than any candidate word
 	 * pass CORRECT_ANSWER_THRESHOLD
 	 *
 	 * The threshold check is needed because an incorrect
@@ -78,47 +110,187 @@ public final class Writings {
 	 * one while being completely dissimilar to it.
 	 */
 	public static boolean isCorrect(WrittenAnswer answer, String word) {
-		WrittenAnswer expectedAnswer = getComparisonInfo(word);
-		double difference = expectedAnswer.compareToWritten(answer);
-		if (difference > CORRECT_ANSWER_THRESHOLD)
+		if (!RecognitionMetrics.isEnabled())
+			return checkCorrect(answer, word);
+		long start = System.nanoTime();
+		long allocated = RecognitionMetrics.allocatedBytes();
+		try {
+			return checkCorrect(answer, word);
+		} finally {
+			RecognitionMetrics.isCorrectFinished(start, allocated);
+		}
+	}
+
+	private static boolean checkCorrect(WrittenAnswer answer, String word) {
+		CandidateIndex candidates = getCandidates(candidateIndex);
+		double difference = getExpectedDifference(candidates, answer, word);
+		if (isRejected(candidates, answer, difference))
+			return false;
+
+		/* The expected word wins ties, so a candidate only matters if it's
+		 * strictly more similar. Comparisons stop as soon as a candidate is
+		 * known to be no better, and the search stops at the first better one.
+		 */
+		for (CandidateIndex.Candidate c : candidates.getCandidates(answer, word)) {
+			if (isMoreSimilar(candidates.compare(c, answer, difference), difference))
+				return false;
+		}
+		return true;
+	}
+
+	/* Checks the difference of the expected word before other words are compared.
+	 * A NaN difference (of a degenerate writing) isn't rejected by the threshold,
+	 * but any word with a number is more similar than it, including the words
+	 * with another number of strokes (always 1), like when results were sorted.
+	 */
+	private static boolean isRejected(CandidateIndex candidates, WrittenAnswer answer, double difference) {
+		if (Double.isNaN(difference))
+			return candidates.getGroup(answer.getStrokesAmount()).length != candidates.getAll().length;
+		return difference > CORRECT_ANSWER_THRESHOLD;
+	}
+
+	// compares differences like Double.compare, so NaN is more dissimilar than anything else
+	static boolean isMoreSimilar(double difference, double expectedDifference) {
+		return Double.compare(difference, expectedDifference) < 0;
+	}
+
+	private static double getExpectedDifference(CandidateIndex candidates, WrittenAnswer answer, String word) {
+		CandidateIndex.Candidate expected = candidates.find(word);
+		if (expected != null)
+			return candidates.compare(expected, answer, Double.POSITIVE_INFINITY);
+		return getComparisonInfo(word).compareToWritten(answer);
+	}
+
+	/* The same as isCorrect, but candidates are compared in parallel off the
+	 * calling thread. Cancelling the returned future stops the comparison.
+	 */
+	public static CompletableFuture<Boolean> isCorrectAsync(WrittenAnswer answer, String word) {
+		CompletableFuture<CandidateIndex> index = candidateIndex;
+		return RecognitionExecutor.submit(cancelled -> {
+			if (!RecognitionMetrics.isEnabled())
+				return checkCorrect(getCandidates(index), answer, word, cancelled);
+			// allocations of the threads the comparisons are split to aren't counted
+			long start = System.nanoTime();
+			long allocated = RecognitionMetrics.allocatedBytes();
+			try {
+				return checkCorrect(getCandidates(index), answer, word, cancelled);
+			} finally {
+				RecognitionMetrics.isCorrectFinished(start, allocated);
+			}
+		});
+	}
+
+	private static boolean checkCorrect(CandidateIndex candidates, WrittenAnswer answer, String word,
+										BooleanSupplier cancelled) {
+		double difference = getExpectedDifference(candidates, answer, word);
+		if (isRejected(candidates, answer, difference))
 			return false;
+		return !RecognitionExecutor.anyMoreSimilar(candidates, candidates.getCandidates(answer, word),
+				answer, difference, cancelled);
+	}
 
-		List<Card> cards = Cards.getCurrentList();
-		List<ComparisonResultEntry> results = new ArrayList<>(cards.size());
-		results.add(new ComparisonResultEntry(word, difference));
+	/* Returns up to k words of the current candidates that are the most similar
+	 * to the answer, the most similar first. Words with a different number of
+	 * strokes are never included as they're the most dissimilar possible.
+	 */
+	public static List<ComparisonResultEntry> rankCandidates(WrittenAnswer answer, int k) {
+		CandidateIndex candidates = getCandidates(candidateIndex);
+		CandidateIndex.Candidate[] group = candidates.getGroup(answer.getStrokesAmount());
+		TopCandidates top = new TopCandidates(k);
+		// offered in order of indices, so the bound can be used to stop comparisons early
+		for (int i = 0; i < group.length; i++)
+			top.offer(i, candidates.compare(group[i], answer, top.getBound()));
+
+		int[] indices = new int[top.size()];
+		double[] differences = new double[top.size()];
+		top.drainSorted(indices, differences);
+
+		List<ComparisonResultEntry> result = new ArrayList<>(indices.length);
+		for (int i = 0; i < indices.length; i++)
+			result.add(new ComparisonResultEntry(group[indices[i]].word, differences[i]));
+		return result;
+	}
 
-		cards.forEach(card -> {
-			String w = card.getWord();
-			if (ComparisonResultEntry.contains(results, w))
-				return;
-			double diff = getComparisonInfo(w).compareToWritten(answer);
-			results.add(new ComparisonResultEntry(w, diff));
+	/* Sets the words an answer is compared to in isCorrect
+	 * (words of Cards.currentList), registering them if needed.
+	 */
+	public static void setCandidates(Collection<String> words) {
+		candidateIndex = CompletableFuture.completedFuture(new CandidateIndex(words));
+	}
+
+	/* The same, but words are registered (in parallel) and the candidates
+	 * are made in the background. Recognition started before they're
+	 * ready waits for them. If they can't be made, the failure is printed
+	 * and recognition fails with it until other candidates are set.
+	 */
+	public static void setCandidatesAsync(Collection<String> words) {
+		CompletableFuture<CandidateIndex> index = CompletableFuture.supplyAsync(() -> {
+			words.parallelStream().forEach(Writings::register);
+			return new CandidateIndex(words);
+		});
+		index.whenComplete((candidates, e) -> {
+			if (e != null) {
+				System.err.println("Unable to make candidates for recognition");
+				e.printStackTrace();
+			}
 		});
+		candidateIndex = index;
+	}
+
+	// waits for the candidates, the exception they failed with is thrown as it is
+	private static CandidateIndex getCandidates(CompletableFuture<CandidateIndex> index) {
+		try {
+			return index.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw e;
+		}
+	}
+
+	// code points of all the loaded writings (sorted), used by benchmarks
+	static int[] getCodePoints() {
+		int[] result = new int[writingsIndex.size()];
+		for (int i = 0; i < result.length; i++)
+			result[i] = writingsIndex.getCodePoint(i);
+		return result;
+	}
 
-		results.sort(Comparator.comparingDouble(ComparisonResultEntry::getDifference));
-		String mostSimilar = results.get(0).getWord();
-		return mostSimilar.equals(word);
+	// used by IncrementalRecognition to compare strokes to current candidates while they're written
+	static CandidateIndex getCandidateIndex() {
+		CompletableFuture<CandidateIndex> index = candidateIndex;
+		// strokes are compared again when it's ready (or not at all if it failed)
+		return index == null || !index.isDone() || index.isCompletedExceptionally() ? null : index.join();
 	}
 
+	// returns null if the word is not supported
 	public static WordWriting getWriting(String word) {
-		return wordWritings.get(word);
+		if (!isSupported(word))
+			return null;
+		return wordWritings.computeIfAbsent(word, WordWriting::new);
 	}
 
+	// registers the word if it's not registered yet, returns null if it's not supported
 	public static WrittenAnswer getComparisonInfo(String word) {
+		if (!isSupported(word))
+			return null;
+		register(word);
 		return comparisonInfo.get(word);
 	}
 
-	/* When a Card is created, it calls this method to add word writings
-	 * here. Some cards have the same kanji but different readings, i.e.
-	 * 月 as がつ and 月 as つき, so there is a check if it is already in the maps.
+	/* Words are registered when they become candidates or when they're
+	 * first requested. Some cards have the same kanji but different readings,
+	 * i.e. 月 as がつ and 月 as つき, so there is a check if it is already in the map.
+	 * Only features of the characters are composed here, curves of the
+	 * writing are decoded by getWriting.
 	 */
 	public static void register(String word) {
-		if (!wordWritings.containsKey(word)) {
-			int characters = word.codePoints().toArray().length;
-			WordWriting ww = new WordWriting(word);
-			WrittenAnswer wa = new WrittenAnswer(ww, characters);
-			wordWritings.put(word, ww);
-			comparisonInfo.put(word, wa);
-		}
+		comparisonInfo.computeIfAbsent(word, w -> {
+			int[] codePoints = w.codePoints().toArray();
+			List<WrittenStroke> strokes = new ArrayList<>();
+			for (int i = 0; i < codePoints.length; i++)
+				referenceFeatures.addStrokes(writingsIndex.find(codePoints[i]), i, strokes);
+			return WrittenAnswer.fromReference(strokes, codePoints.length);
+		});
 	}
 }
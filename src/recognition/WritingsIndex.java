@@ -0,0 +1,169 @@
+package recognition;
+
+import main.Assets;
+import main.Instrumentation;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/* Sorted table of code points and positions of their writings in the
+ * writings file. It's saved next to the writings file so that startup
+ * doesn't need to walk through all the writings. The index file is:
+ * 4 bytes magic, 4 bytes version, 8 bytes size, 8 bytes modification
+ * time and 8 bytes CRC32 of the writings file, 4 bytes number of entries
+ * and the entries (4 bytes code point, 4 bytes offset) sorted by code point.
+ * The checksum is only found again if the size or the time don't match;
+ * if the size or checksum doesn't match, the index is rebuilt.
+ */
+final class WritingsIndex {
+	static final String FILE_NAME = "writings.index";
+	private static final int MAGIC = 0x4a575849; // "JWIX"
+	private static final int VERSION = 2;
+	private static final int HEADER_SIZE = 36;
+
+	private final int[] codePoints;
+	private final int[] offsets; // positions of stroke amounts of writings in the writings file
+	private long writingsChecksum; // CRC32 of the writings file, also used to check other generated files
+
+	private WritingsIndex(int[] codePoints, int[] offsets) {
+		this.codePoints = codePoints;
+		this.offsets = offsets;
+	}
+
+	/* Loads the index for the mapped writings file, rebuilding it if it's missing
+	 * or stale. The index is read to the heap rather than mapped, so that it can
+	 * be replaced while the application is running.
+	 */
+	static WritingsIndex load(ByteBuffer writings, long writingsModified) {
+		ByteBuffer saved = readFile();
+		boolean matches = saved != null && saved.getLong(8) == writings.limit();
+		long checksum;
+		if (matches && saved.getLong(16) == writingsModified) {
+			checksum = saved.getLong(24); // the writings file wasn't changed since the index was saved
+		} else {
+			checksum = checksum(writings);
+			matches = matches && saved.getLong(24) == checksum;
+		}
+
+		WritingsIndex index = matches ? read(saved) : null;
+		boolean save = index == null || saved.getLong(16) != writingsModified; // rebuilt or only touched
+		if (index == null)
+			index = Instrumentation.time("WritingsIndex.build", () -> build(writings));
+		if (save) {
+			try {
+				Assets.replaceFile(FILE_NAME, index.toBytes(writings.limit(), writingsModified, checksum));
+			} catch (IOException e) {
+				// the index can still be used from memory, it will be built again on next start
+				System.err.println("Unable to save " + FILE_NAME + ": " + e.getMessage());
+			}
+		}
+		index.writingsChecksum = checksum;
+		return index;
+	}
+
+	// returns index of the code point in this table or a negative value if it's not there
+	int find(int codePoint) {
+		return Arrays.binarySearch(codePoints, codePoint);
+	}
+
+	int getCodePoint(int i) {
+		return codePoints[i];
+	}
+
+	int getOffset(int i) {
+		return offsets[i];
+	}
+
+	int size() {
+		return codePoints.length;
+	}
+
+	long getWritingsChecksum() {
+		return writingsChecksum;
+	}
+
+	// returns the saved index if it has the right format, without checking if it matches the writings file
+	private static ByteBuffer readFile() {
+		ByteBuffer buffer;
+		try {
+			buffer = ByteBuffer.wrap(Assets.loadBytes(FILE_NAME));
+		} catch (FileNotFoundException e) {
+			return null;
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		}
+		if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+			return null;
+		return buffer;
+	}
+
+	private static WritingsIndex read(ByteBuffer buffer) {
+		int entries = buffer.getInt(32);
+		if (buffer.limit() - HEADER_SIZE != entries * 8L)
+			return null;
+
+		buffer.position(HEADER_SIZE);
+		int[] codePoints = new int[entries];
+		int[] offsets = new int[entries];
+		for (int i = 0; i < entries; i++) {
+			codePoints[i] = buffer.getInt();
+			offsets[i] = buffer.getInt();
+		}
+		return new WritingsIndex(codePoints, offsets);
+	}
+
+	/* Walks through the writings file using the length of each
+	 * writing to skip it, then sorts entries by code point.
+	 */
+	private static WritingsIndex build(ByteBuffer writings) {
+		long[] entries = new long[64];
+		int entriesAmt = 0;
+		int position = 0;
+		while (position < writings.limit()) {
+			int symbol = writings.getInt(position);
+			int length = writings.getInt(position + 4);
+			if (entriesAmt == entries.length)
+				entries = Arrays.copyOf(entries, entriesAmt * 2);
+			// code point in high bits to sort by it, code points are never negative
+			entries[entriesAmt++] = (long) symbol << 32 | (position + 8);
+			position += 8 + length;
+		}
+		if (position != writings.limit())
+			throw new IllegalStateException("writings file is corrupted (last writing ends at "
+					+ position + ", file size is " + writings.limit() + ")");
+
+		Arrays.sort(entries, 0, entriesAmt);
+		int[] codePoints = new int[entriesAmt];
+		int[] offsets = new int[entriesAmt];
+		for (int i = 0; i < entriesAmt; i++) {
+			codePoints[i] = (int) (entries[i] >>> 32);
+			offsets[i] = (int) entries[i];
+		}
+		return new WritingsIndex(codePoints, offsets);
+	}
+
+	private byte[] toBytes(int writingsSize, long writingsModified, long checksum) {
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + codePoints.length * 8);
+		buffer.putInt(MAGIC);
+		buffer.putInt(VERSION);
+		buffer.putLong(writingsSize);
+		buffer.putLong(writingsModified);
+		buffer.putLong(checksum);
+		buffer.putInt(codePoints.length);
+		for (int i = 0; i < codePoints.length; i++) {
+			buffer.putInt(codePoints[i]);
+			buffer.putInt(offsets[i]);
+		}
+		return buffer.array();
+	}
+
+	private static long checksum(ByteBuffer writings) {
+		CRC32 crc = new CRC32();
+		crc.update(writings.duplicate().position(0));
+		return crc.getValue();
+	}
+}
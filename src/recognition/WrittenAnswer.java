@@ -5,6 +5,8 @@ import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 // contains a written word as an answer used in recognition
 public class WrittenAnswer {
@@ -16,18 +18,50 @@ public class WrittenAnswer {
 	 */
 	private int characters;
 	private List<StrokesConnection> strokesConnections;
+	/* Written answers are fit to the length of each word they're compared to,
+	 * these are kept here by word length to only be created once per answer.
+	 * Written answers can be compared to words in parallel. Not set for loaded words.
+	 */
+	private Map<Integer, WrittenAnswer> normalized;
+	/* Sums of angle differences to every candidate (by candidate id) found by
+	 * IncrementalRecognition while the answer was written, can be null.
+	 */
+	private CandidateIndex angleSumsIndex;
+	private double[] angleDifferenceSums;
 
 	public WrittenAnswer(List<List<Point2D>> writing) {
 		strokes = new ArrayList<>(writing.size());
 		writing.forEach(pts -> strokes.add(new WrittenStroke(pts)));
+		normalized = new ConcurrentHashMap<>();
 	}
 
-	WrittenAnswer(WordWriting loaded, int characters) {
-		List<Stroke> from = loaded.getStrokes();
-		strokes = new ArrayList<>(from.size());
-		from.forEach(st -> strokes.add(st.toWrittenStroke()));
-		this.characters = characters;
-		findConnections();
+	private WrittenAnswer() {
+	}
+
+	// the same as the constructor for lists of points, but for already packed strokes
+	public static WrittenAnswer fromStrokes(List<StrokePoints> writing) {
+		WrittenAnswer answer = new WrittenAnswer();
+		answer.strokes = new ArrayList<>(writing.size());
+		writing.forEach(pts -> answer.strokes.add(new WrittenStroke(pts)));
+		answer.normalized = new ConcurrentHashMap<>();
+		return answer;
+	}
+
+	// creates a written answer from strokes with already calculated angles
+	static WrittenAnswer fromWrittenStrokes(List<WrittenStroke> writing) {
+		WrittenAnswer answer = new WrittenAnswer();
+		answer.strokes = new ArrayList<>(writing);
+		answer.normalized = new ConcurrentHashMap<>();
+		return answer;
+	}
+
+	// creates a loaded word from strokes made of ReferenceFeatures
+	static WrittenAnswer fromReference(List<WrittenStroke> strokes, int characters) {
+		WrittenAnswer answer = new WrittenAnswer();
+		answer.strokes = strokes;
+		answer.characters = characters;
+		answer.findConnections();
+		return answer;
 	}
 
 	// scaleToLength is the word length
@@ -59,26 +93,127 @@ public class WrittenAnswer {
 	 * Returns 0 for the same, 1 for the most dissimilar writings
 	 */
 	double compareToWritten(WrittenAnswer to) {
+		return compareToWritten(to, Double.POSITIVE_INFINITY);
+	}
+
+	/* The same, but stops comparing as soon as the result is known to be
+	 * no less than 'bound' (both parts of the difference only grow while
+	 * strokes are compared). In that case the returned value is only
+	 * guaranteed to be no less than 'bound'.
+	 */
+	double compareToWritten(WrittenAnswer to, double bound) {
+		if (!RecognitionMetrics.isEnabled())
+			return difference(to, bound);
+		long start = System.nanoTime();
+		double result = difference(to, bound);
+		RecognitionMetrics.compareFinished(start);
+		return result;
+	}
+
+	private double difference(WrittenAnswer to, double bound) {
 		if (characters == 0)
 			throw new Error("compareToWritten call on an instance with no characters value set");
 		if (to.strokes.size() != this.strokes.size())
 			return 1d;
 
-		to = new WrittenAnswer(to, characters);
+		to = to.getNormalized(characters);
 
+		double posDifference = StrokesConnection.compare(this.strokesConnections, to.strokesConnections);
 		double avgAngDifference = 0;
 		for (int i = 0; i < strokes.size(); i++) {
 			WrittenStroke s1 = this.strokes.get(i);
 			WrittenStroke s2 = to.strokes.get(i);
 			avgAngDifference += s1.compare(s2);
+
+			double atLeast = (avgAngDifference / strokes.size() + posDifference) / 2d;
+			if (atLeast >= bound)
+				return atLeast;
 		}
 
 		double angDifference = avgAngDifference / strokes.size();
-		double posDifference = StrokesConnection.compare(this.strokesConnections, to.strokesConnections);
+		return (angDifference + posDifference) / 2d;
+	}
+
+	/* The same, but the sum of angle differences of all the strokes is already
+	 * known, so only positions of the strokes are compared.
+	 */
+	double compareToWrittenWithAngles(WrittenAnswer to, double angleDifferencesSum) {
+		if (!RecognitionMetrics.isEnabled())
+			return differenceWithAngles(to, angleDifferencesSum);
+		long start = System.nanoTime();
+		double result = differenceWithAngles(to, angleDifferencesSum);
+		RecognitionMetrics.compareFinished(start);
+		return result;
+	}
+
+	private double differenceWithAngles(WrittenAnswer to, double angleDifferencesSum) {
+		if (characters == 0)
+			throw new Error("compareToWritten call on an instance with no characters value set");
+		if (to.strokes.size() != this.strokes.size())
+			return 1d;
 
+		to = to.getNormalized(characters);
+
+		double posDifference = StrokesConnection.compare(this.strokesConnections, to.strokesConnections);
+		double angDifference = angleDifferencesSum / strokes.size();
 		return (angDifference + posDifference) / 2d;
 	}
 
+	// angle difference of a stroke of this loaded word and a written stroke
+	double compareStroke(int index, WrittenStroke to) {
+		return strokes.get(index).compare(to);
+	}
+
+	void setAngleDifferenceSums(CandidateIndex index, double[] sums) {
+		angleSumsIndex = index;
+		angleDifferenceSums = sums;
+	}
+
+	// returns null if the sums weren't found for the given index
+	double[] getAngleDifferenceSums(CandidateIndex index) {
+		return index == angleSumsIndex ? angleDifferenceSums : null;
+	}
+
+	/* Finds cells of a coarse grid (cellsPerCharacter cells for each side of
+	 * a character box) where strokes start and end. Used to quickly estimate
+	 * similarity; the instance has to be in coordinates of loaded writings.
+	 * Cells are X in high and Y in low 16 bits, start and end of each stroke.
+	 */
+	int[] getGridCells(int cellsPerCharacter) {
+		double cellSize = (double) CharacterWriting.CHARACTER_BOX_SIZE / cellsPerCharacter;
+		int[] cells = new int[strokes.size() * 2];
+		for (int i = 0; i < strokes.size(); i++) {
+			WrittenStroke s = strokes.get(i);
+			cells[i * 2] = gridCell(s.getStartX(), s.getStartY(), cellSize);
+			cells[i * 2 + 1] = gridCell(s.getEndX(), s.getEndY(), cellSize);
+		}
+		return cells;
+	}
+
+	// the same for a written answer, which is first fit to a word of the given length
+	int[] getGridCells(int cellsPerCharacter, int scaleToLength) {
+		return getNormalized(scaleToLength).getGridCells(cellsPerCharacter);
+	}
+
+	// returns this written answer positioned and scaled as a loaded word of the given length
+	private WrittenAnswer getNormalized(int scaleToLength) {
+		return normalized.computeIfAbsent(scaleToLength, length -> new WrittenAnswer(this, length));
+	}
+
+	private static int gridCell(double x, double y, double cellSize) {
+		int cellX = Math.max(0, (int) (x / cellSize));
+		int cellY = Math.max(0, (int) (y / cellSize));
+		return Math.min(cellX, 0xffff) << 16 | Math.min(cellY, 0xffff);
+	}
+
+	int getStrokesAmount() {
+		return strokes.size();
+	}
+
+	int getCharacters() {
+		return characters;
+	}
+
 	// positions and scales a writing to have a similar location as loaded writings
 	private AffineTransform getTransformForLength(int scaleToLength) {
 		Rectangle2D bounds = getBounds();
@@ -3,80 +3,88 @@ package recognition;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
-import java.util.ArrayList;
 import java.util.List;
 
 // contains angles of written and loaded strokes used in recognition
 class WrittenStroke {
-	private static final int ANGLES_ARRAY_LENGTH = 8;
+	static final int ANGLES_ARRAY_LENGTH = 8;
 
-	private List<Point2D> points;
-
-	// totalLength isn't set when using transform constructor, but it isn't necessary
+	private StrokePoints points; // null for strokes of loaded writings made of ReferenceFeatures
 	private double[] angles;
+	private double startX, startY, endX, endY;
 
-	WrittenStroke(List<Point2D> points, double[] lengths, double totalLength) {
+	WrittenStroke(StrokePoints points) {
 		this.points = points;
-		calculateAngles(lengths, totalLength);
+		findEnds();
+		calculateAngles();
 	}
 
 	WrittenStroke(List<Point2D> points) {
-		this.points = points;
-		calculateAngles();
+		this(new StrokePoints(points));
 	}
 
 	WrittenStroke(WrittenStroke stroke, AffineTransform at) {
-		points = new ArrayList<>(stroke.points.size());
-		for (Point2D p : stroke.points)
-			points.add(at.transform(p, null));
+		points = stroke.points.transformed(at);
 		angles = stroke.angles;
+		findEnds();
 	}
 
-	private void calculateAngles() {
-		double[] lengths = new double[points.size()];
-		double totalLength = 0;
-		for (int i = 1; i < points.size(); i++) {
-			lengths[i] = points.get(i - 1).distance(points.get(i));
-			totalLength += lengths[i];
-		}
+	// a stroke of a loaded writing with already known features (see ReferenceFeatures)
+	WrittenStroke(double[] angles, double startX, double startY, double endX, double endY) {
+		this.angles = angles;
+		this.startX = startX;
+		this.startY = startY;
+		this.endX = endX;
+		this.endY = endY;
+	}
 
-		calculateAngles(lengths, totalLength);
+	private void findEnds() {
+		startX = points.getX(0);
+		startY = points.getY(0);
+		endX = points.getX(points.size() - 1);
+		endY = points.getY(points.size() - 1);
 	}
 
-	private void calculateAngles(double[] lengths, double totalLength) {
+	private void calculateAngles() {
 		angles = new double[ANGLES_ARRAY_LENGTH];
-		Point2D prev = points.get(0);
+		double[] next = new double[2];
+		double prevX = points.getX(0), prevY = points.getY(0);
 		for (int i = 0; i < ANGLES_ARRAY_LENGTH; i++) {
 			double t = (i + 1d) / ANGLES_ARRAY_LENGTH;
-			Point2D next = getPoint(t, lengths, totalLength);
-			angles[i] = Math.atan2(next.getY() - prev.getY(), next.getX() - prev.getX());
-			prev = next;
+			Curves.findPointOnPath(points, t, next); // finds a point on the stroke (0 < t < 1)
+			angles[i] = Math.atan2(next[1] - prevY, next[0] - prevX);
+			prevX = next[0];
+			prevY = next[1];
 		}
 	}
 
-	// finds a point on the stroke (0 < t < 1)
-	private Point2D getPoint(double t, double[] lengths, double totalLength) {
-		return Curves.findPointOnPath(points, lengths, totalLength, t);
-	}
-
 	double compare(WrittenStroke to) {
 		return getAngleDifference(angles, to.angles);
 	}
 
+	// only used for written strokes (strokes made of ReferenceFeatures have no points)
 	Rectangle2D getBounds() {
-		Point2D first = points.get(0);
-		Rectangle2D r = new Rectangle2D.Double(first.getX(), first.getY(), 0, 0);
-		for (int i = 1; i < points.size(); i++)
-			r.add(points.get(i));
-		return r;
+		return points.getBounds();
+	}
+
+	double getAngle(int i) {
+		return angles[i];
+	}
+
+	double getStartX() {
+		return startX;
+	}
+
+	double getStartY() {
+		return startY;
 	}
 
-	Point2D getStart() {
-		return points.get(0);
+	double getEndX() {
+		return endX;
 	}
 
-	Point2D getEnd() {
-		return points.get(points.size() - 1);
+	double getEndY() {
+		return endY;
 	}
 
 	// returns a value from 0 (similar strokes) to 1 (most dissimilar)